@@ -0,0 +1,178 @@
+package org.elpatronstudio.easybuild.server.gametest;
+
+import com.google.gson.JsonObject;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.neoforge.registries.DeferredRegister;
+import org.elpatronstudio.easybuild.core.model.AnchorPos;
+import org.elpatronstudio.easybuild.core.model.JobPhase;
+import org.elpatronstudio.easybuild.core.model.PasteMode;
+import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.elpatronstudio.easybuild.server.job.BuildJob;
+import org.elpatronstudio.easybuild.server.job.BuildJobManager;
+import org.elpatronstudio.easybuild.server.job.BuildJobState;
+import org.elpatronstudio.easybuild.server.job.JobIdGenerator;
+import org.elpatronstudio.esaybuildauto.Esaybuildauto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Build throughput regression tests, run by the {@code gameTestServer} run configuration. They live in the
+ * {@code gametest} source set and are registered by {@link EasyBuildGameTests}.
+ * <p>
+ * Each test writes a synthetic structure template, submits it through {@link BuildJobManager#submitTrusted}, waits for
+ * the job to complete and checks its wall-clock blocks per second and how far any placement tick overran the budget the
+ * scheduler granted it against thresholds.
+ * The thresholds are deliberately loose so they hold on a slow headless CI box and can be tightened per machine with
+ * the {@code easybuild.gametest.*} system properties.
+ */
+public final class BuildThroughputTests {
+
+    private static final UUID OWNER_UUID = UUID.nameUUIDFromBytes("easybuild-gametest".getBytes(StandardCharsets.UTF_8));
+    private static final String OWNER_NAME = "gametest";
+    private static final BlockPos ORIGIN = new BlockPos(1, 1, 1);
+    private static final List<BlockState> PALETTE = List.of(
+            Blocks.STONE.defaultBlockState(),
+            Blocks.OAK_PLANKS.defaultBlockState(),
+            Blocks.BRICKS.defaultBlockState(),
+            Blocks.GLASS.defaultBlockState(),
+            Blocks.WHITE_WOOL.defaultBlockState(),
+            Blocks.COBBLESTONE.defaultBlockState()
+    );
+
+    private static final double MIN_STEP_BLOCKS_PER_SECOND = threshold("minStepBlocksPerSecond", 500.0);
+    private static final double MIN_SIMULATED_BLOCKS_PER_SECOND = threshold("minSimulatedBlocksPerSecond", 200.0);
+    private static final double MIN_ATOMIC_BLOCKS_PER_SECOND = threshold("minAtomicBlocksPerSecond", 2000.0);
+    private static final double TICK_SLACK_MS = threshold("tickSlackMs", 5.0);
+
+    private static final DeferredRegister<Consumer<GameTestHelper>> TEST_FUNCTIONS =
+            DeferredRegister.create(Registries.TEST_FUNCTION, Esaybuildauto.MODID);
+
+    static {
+        TEST_FUNCTIONS.register("build_throughput_step_small",
+                () -> helper -> runBuild(helper, "step_small", 8, 8, 8, PasteMode.STEP, MIN_STEP_BLOCKS_PER_SECOND));
+        TEST_FUNCTIONS.register("build_throughput_step_medium",
+                () -> helper -> runBuild(helper, "step_medium", 32, 16, 32, PasteMode.STEP, MIN_STEP_BLOCKS_PER_SECOND));
+        TEST_FUNCTIONS.register("build_throughput_simulated_small",
+                () -> helper -> runBuild(helper, "simulated_small", 8, 8, 8, PasteMode.SIMULATED, MIN_SIMULATED_BLOCKS_PER_SECOND));
+        TEST_FUNCTIONS.register("build_throughput_atomic_small",
+                () -> helper -> runBuild(helper, "atomic_small", 8, 8, 8, PasteMode.ATOMIC, MIN_ATOMIC_BLOCKS_PER_SECOND));
+    }
+
+    private BuildThroughputTests() {
+    }
+
+    public static void register(IEventBus modEventBus) {
+        TEST_FUNCTIONS.register(modEventBus);
+    }
+
+    private static void runBuild(GameTestHelper helper, String name, int sizeX, int sizeY, int sizeZ, PasteMode mode,
+                                 double minBlocksPerSecond) {
+        ServerLevel level = helper.getLevel();
+        ResourceLocation templateId = ResourceLocation.fromNamespaceAndPath(Esaybuildauto.MODID, "gametest/" + name);
+        int blocks = createTemplate(level, templateId, sizeX, sizeY, sizeZ);
+
+        BlockPos anchor = helper.absolutePos(ORIGIN);
+        BuildJob job = new BuildJob(
+                JobIdGenerator.nextId(),
+                OWNER_UUID,
+                new SchematicRef(templateId.toString(), 1, 0L),
+                new AnchorPos(level.dimension().location(), anchor.getX(), anchor.getY(), anchor.getZ(), Direction.NORTH),
+                mode,
+                new JsonObject(),
+                System.currentTimeMillis(),
+                "gametest-" + name
+        );
+        BuildJobState state = BuildJobManager.get().submitTrusted(level, job, OWNER_NAME);
+
+        helper.succeedWhen(() -> {
+            JobPhase phase = state.phase();
+            helper.assertTrue(phase == JobPhase.COMPLETED, Component.literal("Job " + job.jobId() + " ist in Phase " + phase));
+            helper.assertTrue(state.placed() == blocks, Component.literal(
+                    name + ": " + state.placed() + " von " + blocks + " Blöcken platziert"));
+
+            double blocksPerSecond = state.blocksPerSecond();
+            helper.assertTrue(blocksPerSecond >= minBlocksPerSecond, Component.literal(String.format(Locale.ROOT,
+                    "%s: %.0f Blöcke/s, erwartet mindestens %.0f", name, blocksPerSecond, minBlocksPerSecond)));
+
+            // ATOMIC writes the whole structure in one tick and is exempt from the tick budget. The governor scales the
+            // budget with MSPT headroom, so each tick is checked against the budget it was actually granted.
+            if (mode != PasteMode.ATOMIC) {
+                double overrunMs = state.maxBudgetOverrunNanos() / 1_000_000.0;
+                helper.assertTrue(overrunMs <= TICK_SLACK_MS, Component.literal(String.format(Locale.ROOT,
+                        "%s: Platzierungstick überschritt sein Budget um %.2f ms (längster Tick %.2f ms), erlaubt %.2f ms",
+                        name, overrunMs, state.maxPlacementNanos() / 1_000_000.0, TICK_SLACK_MS)));
+            }
+        });
+    }
+
+    /**
+     * Registers a solid box of {@code PALETTE} blocks under {@code id} in the server's template cache and returns the
+     * number of blocks in it.
+     */
+    private static int createTemplate(ServerLevel level, ResourceLocation id, int sizeX, int sizeY, int sizeZ) {
+        ListTag palette = new ListTag();
+        for (BlockState state : PALETTE) {
+            palette.add(NbtUtils.writeBlockState(state));
+        }
+
+        ListTag blocks = new ListTag();
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    CompoundTag block = new CompoundTag();
+                    block.put("pos", intList(x, y, z));
+                    block.putInt("state", (x + y * 3 + z * 7) % PALETTE.size());
+                    blocks.add(block);
+                }
+            }
+        }
+
+        CompoundTag tag = new CompoundTag();
+        tag.put("size", intList(sizeX, sizeY, sizeZ));
+        tag.put("palette", palette);
+        tag.put("blocks", blocks);
+        tag.put("entities", new ListTag());
+
+        StructureTemplate template = level.getServer().getStructureManager().getOrCreate(id);
+        template.load(level.holderLookup(Registries.BLOCK), tag);
+        return sizeX * sizeY * sizeZ;
+    }
+
+    private static ListTag intList(int x, int y, int z) {
+        ListTag list = new ListTag();
+        list.add(IntTag.valueOf(x));
+        list.add(IntTag.valueOf(y));
+        list.add(IntTag.valueOf(z));
+        return list;
+    }
+
+    private static double threshold(String key, double defaultValue) {
+        String value = System.getProperty("easybuild.gametest." + key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+}
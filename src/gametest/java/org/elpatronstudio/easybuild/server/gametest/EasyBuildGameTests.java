@@ -0,0 +1,17 @@
+package org.elpatronstudio.easybuild.server.gametest;
+
+import net.neoforged.bus.api.IEventBus;
+import net.neoforged.fml.common.Mod;
+import org.elpatronstudio.esaybuildauto.Esaybuildauto;
+
+/**
+ * Second entrypoint of the mod that only exists in the {@code gametest} source set, so the game tests and their data
+ * are registered in development runs but never ship in the release jar.
+ */
+@Mod(Esaybuildauto.MODID)
+public final class EasyBuildGameTests {
+
+    public EasyBuildGameTests(IEventBus modEventBus) {
+        BuildThroughputTests.register(modEventBus);
+    }
+}
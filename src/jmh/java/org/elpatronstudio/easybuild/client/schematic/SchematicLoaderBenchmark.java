@@ -0,0 +1,199 @@
+package org.elpatronstudio.easybuild.client.schematic;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.commands.arguments.blocks.BlockStateParser;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.state.BlockState;
+import org.elpatronstudio.easybuild.client.model.SchematicFileEntry;
+import org.elpatronstudio.easybuild.core.model.AnchorPos;
+import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.elpatronstudio.easybuild.server.job.BlockPlacementException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the hot paths of {@link SchematicBlockLoader} on synthetic cubes of {@code size}³ blocks.
+ * <p>
+ * Inputs come from {@link SyntheticSchematics}: roughly a third of the volume is air, the rest is drawn uniformly from
+ * {@code paletteSize} block states with items.
+ * Run with {@code ./gradlew jmh}; the GC profiler reports allocation rates next to the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchematicLoaderBenchmark {
+
+    private static final double AIR_RATIO = 0.3;
+    private static final int MULTI_REGION_COUNT = 8;
+    private static final AnchorPos ANCHOR = new AnchorPos(ResourceLocation.withDefaultNamespace("overworld"), 0, 64, 0, Direction.EAST);
+
+    @Param({"16", "64", "128"})
+    public int size;
+
+    @Param({"16", "256"})
+    public int paletteSize;
+
+    private HolderLookup<Block> blockLookup;
+    private int volume;
+    private long[] packedStates;
+    private byte[] spongeBlockData;
+    private boolean[] keepNonAir;
+    private final IndexChecksum checksum = new IndexChecksum();
+    private CompoundTag spongePalette;
+    private List<SchematicBlockLoader.IntermediatePlacement> intermediate;
+    private Path directory;
+    private SchematicFileEntry spongeFile;
+    private SchematicFileEntry litematicFile;
+    private SchematicFileEntry multiRegionLitematicFile;
+    private SchematicFileEntry structureFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        blockLookup = BuiltInRegistries.BLOCK;
+
+        SyntheticSchematics.Volume synthetic = SyntheticSchematics.generate(SyntheticSchematics.Spec.cube(size, paletteSize).withAirRatio(AIR_RATIO));
+        List<BlockState> palette = synthetic.palette();
+        int[] indices = synthetic.indices();
+        volume = indices.length;
+
+        keepNonAir = PaletteIndexDecoder.keepMask(palette, false);
+        packedStates = SyntheticSchematics.pack(indices, SyntheticSchematics.paletteBits(palette.size()));
+        spongePalette = new CompoundTag();
+        for (int i = 0; i < palette.size(); i++) {
+            spongePalette.putInt(BlockStateParser.serialize(palette.get(i)), i);
+        }
+        CompoundTag blockData = new CompoundTag();
+        blockData.putByteArray("BlockData", SyntheticSchematics.encodeVarInts(indices));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NbtIo.write(blockData, new DataOutputStream(bytes));
+        spongeBlockData = bytes.toByteArray();
+
+        intermediate = new ArrayList<>(volume);
+        for (int i = 0; i < volume; i++) {
+            int x = i % size;
+            int z = (i / size) % size;
+            int y = i / (size * size);
+            intermediate.add(new SchematicBlockLoader.IntermediatePlacement(new BlockPos(x, y, z), new BlockPos(-z, y, x), palette.get(indices[i])));
+        }
+
+        directory = Files.createTempDirectory("easybuild-jmh");
+        spongeFile = write("bench.schem", SyntheticSchematics.Format.SPONGE, synthetic);
+        litematicFile = write("bench.litematic", SyntheticSchematics.Format.LITEMATIC, synthetic);
+        multiRegionLitematicFile = write("bench_regions.litematic", SyntheticSchematics.Format.LITEMATIC_MULTI_REGION,
+                SyntheticSchematics.generate(synthetic.spec().withRegions(MULTI_REGION_COUNT)));
+        structureFile = write("bench.nbt", SyntheticSchematics.Format.STRUCTURE, synthetic);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long unpackBlockData() throws BlockPlacementException {
+        checksum.sum = 0L;
+        PaletteIndexDecoder.unpack(packedStates, volume, PaletteIndexDecoder.bitsFor(paletteSize), keepNonAir, checksum);
+        return checksum.sum;
+    }
+
+    @Benchmark
+    public long decodeVarIntBlockData() throws IOException {
+        checksum.sum = 0L;
+        try (NbtStreamReader reader = NbtStreamReader.open(new ByteArrayInputStream(spongeBlockData))) {
+            while (reader.nextEntry()) {
+                reader.readVarInts(volume, keepNonAir, checksum);
+            }
+        }
+        return checksum.sum;
+    }
+
+    @Benchmark
+    public Map<Integer, BlockState> parsePalette() throws BlockPlacementException {
+        return SchematicBlockLoader.parsePalette(spongePalette, blockLookup);
+    }
+
+    @Benchmark
+    public SchematicBlockLoader.Result finalizePlacements() {
+        BlockPos localMin = SchematicBlockLoader.rotatedMin(BlockPos.ZERO, new BlockPos(size - 1, size - 1, size - 1), Rotation.CLOCKWISE_90);
+        return SchematicBlockLoader.finalizePlacements(intermediate, Map.of(), localMin, BlockPos.ZERO, Rotation.CLOCKWISE_90, false, "bench");
+    }
+
+    @Benchmark
+    public SchematicBlockLoader.Result loadSponge() throws BlockPlacementException {
+        return SchematicBlockLoader.load(blockLookup, spongeFile, ANCHOR, false);
+    }
+
+    @Benchmark
+    public SchematicBlockLoader.Result loadLitematic() throws BlockPlacementException {
+        return SchematicBlockLoader.load(blockLookup, litematicFile, ANCHOR, false);
+    }
+
+    @Benchmark
+    public SchematicBlockLoader.Result loadMultiRegionLitematic() throws BlockPlacementException {
+        return SchematicBlockLoader.load(blockLookup, multiRegionLitematicFile, ANCHOR, false);
+    }
+
+    @Benchmark
+    public SchematicBlockLoader.Result loadStructure() throws BlockPlacementException {
+        return SchematicBlockLoader.load(blockLookup, structureFile, ANCHOR, false);
+    }
+
+    private SchematicFileEntry write(String fileName, SyntheticSchematics.Format format, SyntheticSchematics.Volume synthetic) throws IOException {
+        Path path = SyntheticSchematics.write(directory.resolve(fileName), format, synthetic);
+        return new SchematicFileEntry(fileName, fileName, path, new SchematicRef(fileName, 1, 0L), 0L, Files.size(path));
+    }
+
+    /**
+     * Folds decoded indices into a sum so the decoders cannot be optimized away without allocating per voxel.
+     */
+    private static final class IndexChecksum implements PaletteIndexDecoder.Sink {
+        private long sum;
+
+        @Override
+        public void accept(int voxel, int paletteIndex) {
+            sum += voxel ^ paletteIndex;
+        }
+    }
+}
@@ -0,0 +1,610 @@
+package org.elpatronstudio.easybuild.client.schematic;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.commands.arguments.blocks.BlockStateParser;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates reproducible schematic files for load tests and benchmarks.
+ * <p>
+ * A {@link Spec} describes the volume (size, palette cardinality, air ratio, block entity density and seed);
+ * {@link #generate(Spec)} turns it into palette indices and {@link #write(Path, Format, Spec)} writes it as Sponge
+ * {@code .schem}, single- or multi-region {@code .litematic} or structure {@code .nbt}. Files are streamed straight to
+ * the gzip output instead of being built as one tag tree first, so inputs of ten million blocks fit in a small heap.
+ * <p>
+ * {@link #main(String[])} backs {@code ./gradlew generateSchematics}.
+ */
+public final class SyntheticSchematics {
+
+    /**
+     * Data version written into the files; the loaders ignore it, but external tools expect the field.
+     */
+    public static final int DATA_VERSION = 4556;
+
+    private static final int SPONGE_VERSION = 2;
+    private static final int LITEMATIC_VERSION = 6;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int[] DEFAULT_SIZES = {10, 48, 100, 216};
+    private static final int[] DEFAULT_PALETTES = {16, 256};
+
+    private SyntheticSchematics() {
+    }
+
+    public enum Format {
+        SPONGE(".schem"),
+        LITEMATIC(".litematic"),
+        LITEMATIC_MULTI_REGION(".litematic"),
+        STRUCTURE(".nbt");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Parameters of a synthetic volume.
+     *
+     * @param paletteSize        number of distinct block states including air
+     * @param blockEntityDensity share of non-air blocks replaced by chests carrying block entity data
+     * @param airRatio           share of the volume left as air
+     * @param regions            sub-regions for {@link Format#LITEMATIC_MULTI_REGION}, sliced along X
+     */
+    public record Spec(int width, int height, int length, int paletteSize, double blockEntityDensity, double airRatio,
+                       int regions, long seed) {
+
+        public Spec {
+            if (width <= 0 || height <= 0 || length <= 0) {
+                throw new IllegalArgumentException("Size must be positive: " + width + "x" + height + "x" + length);
+            }
+            if ((long) width * height * length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Volume too large: " + width + "x" + height + "x" + length);
+            }
+            if (paletteSize < 2) {
+                throw new IllegalArgumentException("Palette needs air and at least one block: " + paletteSize);
+            }
+            if (blockEntityDensity < 0.0 || blockEntityDensity > 1.0 || airRatio < 0.0 || airRatio > 1.0) {
+                throw new IllegalArgumentException("Ratios must be within [0, 1]");
+            }
+            regions = Math.max(1, Math.min(regions, width));
+        }
+
+        public static Spec cube(int size, int paletteSize) {
+            return new Spec(size, size, size, paletteSize, 0.0, 0.3, 1, 42L);
+        }
+
+        public int volume() {
+            return width * height * length;
+        }
+
+        public Spec withBlockEntityDensity(double density) {
+            return new Spec(width, height, length, paletteSize, density, airRatio, regions, seed);
+        }
+
+        public Spec withAirRatio(double ratio) {
+            return new Spec(width, height, length, paletteSize, blockEntityDensity, ratio, regions, seed);
+        }
+
+        public Spec withRegions(int count) {
+            return new Spec(width, height, length, paletteSize, blockEntityDensity, airRatio, count, seed);
+        }
+
+        public Spec withSeed(long value) {
+            return new Spec(width, height, length, paletteSize, blockEntityDensity, airRatio, regions, value);
+        }
+    }
+
+    /**
+     * Generated content: palette indices in schematic order (X fastest, then Z, then Y) and the voxels holding a block
+     * entity. Index 0 is air; with block entities, index 1 is a chest.
+     */
+    public record Volume(Spec spec, List<BlockState> palette, int[] indices, BitSet blockEntities) {
+
+        public int index(int x, int y, int z) {
+            return (y * spec.length() + z) * spec.width() + x;
+        }
+    }
+
+    public static Volume generate(Spec spec) {
+        List<BlockState> palette = palette(spec.paletteSize(), spec.blockEntityDensity() > 0.0);
+        int[] indices = new int[spec.volume()];
+        BitSet blockEntities = new BitSet();
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        int firstSolid = spec.blockEntityDensity() > 0.0 ? 2 : 1;
+        for (int i = 0; i < indices.length; i++) {
+            if (random.nextDouble() < spec.airRatio()) {
+                continue;
+            }
+            if (firstSolid == 2 && random.nextDouble() < spec.blockEntityDensity()) {
+                indices[i] = 1;
+                blockEntities.set(i);
+            } else {
+                indices[i] = firstSolid == palette.size() ? 1 : firstSolid + random.nextInt(palette.size() - firstSolid);
+            }
+        }
+        return new Volume(spec, palette, indices, blockEntities);
+    }
+
+    /**
+     * Air, optionally a chest, then default states of blocks that have an item; when those run out, the remaining
+     * states of the same blocks fill the palette up to {@code count}.
+     */
+    public static List<BlockState> palette(int count, boolean withChest) {
+        Set<BlockState> states = new LinkedHashSet<>();
+        states.add(Blocks.AIR.defaultBlockState());
+        if (withChest) {
+            states.add(Blocks.CHEST.defaultBlockState());
+        }
+        for (Block block : BuiltInRegistries.BLOCK) {
+            if (states.size() >= count) {
+                break;
+            }
+            if (block.asItem() != Items.AIR && !block.defaultBlockState().isAir()) {
+                states.add(block.defaultBlockState());
+            }
+        }
+        for (Block block : BuiltInRegistries.BLOCK) {
+            if (block.asItem() == Items.AIR || block.defaultBlockState().isAir()) {
+                continue;
+            }
+            for (BlockState state : block.getStateDefinition().getPossibleStates()) {
+                if (states.size() >= count) {
+                    return List.copyOf(states);
+                }
+                states.add(state);
+            }
+        }
+        if (states.size() < count) {
+            throw new IllegalArgumentException("Only " + states.size() + " block states available, requested " + count);
+        }
+        return List.copyOf(states);
+    }
+
+    public static Path write(Path file, Format format, Spec spec) throws IOException {
+        return write(file, format, generate(spec));
+    }
+
+    public static Path write(Path file, Format format, Volume volume) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (NbtStreamWriter out = new NbtStreamWriter(file)) {
+            switch (format) {
+                case SPONGE -> writeSponge(out, volume);
+                case LITEMATIC -> writeLitematic(out, volume, 1);
+                case LITEMATIC_MULTI_REGION -> writeLitematic(out, volume, Math.max(2, volume.spec().regions()));
+                case STRUCTURE -> writeStructure(out, volume);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Bits per entry used by Litematica and long-array Sponge data for a palette of {@code paletteSize} states.
+     */
+    public static int paletteBits(int paletteSize) {
+        return Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(paletteSize - 1));
+    }
+
+    /**
+     * Litematica packing: entries are laid out back to back and may straddle two longs.
+     */
+    public static long[] pack(int[] indices, int bits) {
+        long[] packed = new long[(int) (((long) indices.length * bits + 63) / 64)];
+        long bitIndex = 0;
+        for (int value : indices) {
+            int longIndex = (int) (bitIndex >> 6);
+            int offset = (int) (bitIndex & 63);
+            packed[longIndex] |= (long) value << offset;
+            if (offset + bits > 64) {
+                packed[longIndex + 1] |= (long) value >>> (64 - offset);
+            }
+            bitIndex += bits;
+        }
+        return packed;
+    }
+
+    /**
+     * Sponge {@code BlockData}: one varint per entry.
+     */
+    public static byte[] encodeVarInts(int[] indices) {
+        int length = 0;
+        for (int value : indices) {
+            length += varIntSize(value);
+        }
+        byte[] data = new byte[length];
+        int cursor = 0;
+        for (int value : indices) {
+            while ((value & ~0x7F) != 0) {
+                data[cursor++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[cursor++] = (byte) value;
+        }
+        return data;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    private static void writeSponge(NbtStreamWriter out, Volume volume) throws IOException {
+        Spec spec = volume.spec();
+        out.beginRoot();
+        out.putInt("Version", SPONGE_VERSION);
+        out.putInt("DataVersion", DATA_VERSION);
+        out.putShort("Width", (short) spec.width());
+        out.putShort("Height", (short) spec.height());
+        out.putShort("Length", (short) spec.length());
+        out.putInt("PaletteMax", volume.palette().size());
+        CompoundTag palette = new CompoundTag();
+        for (int i = 0; i < volume.palette().size(); i++) {
+            palette.putInt(BlockStateParser.serialize(volume.palette().get(i)), i);
+        }
+        out.put("Palette", palette);
+        out.putByteArray("BlockData", encodeVarInts(volume.indices()));
+
+        out.beginList("BlockEntities", Tag.TAG_COMPOUND, volume.blockEntities().cardinality());
+        for (int i = volume.blockEntities().nextSetBit(0); i >= 0; i = volume.blockEntities().nextSetBit(i + 1)) {
+            int x = i % spec.width();
+            int z = (i / spec.width()) % spec.length();
+            int y = i / (spec.width() * spec.length());
+            out.beginElement();
+            out.putIntArray("Pos", new int[]{x, y, z});
+            out.putString("Id", "minecraft:chest");
+            out.put("Items", chestItems());
+            out.end();
+        }
+        out.end();
+    }
+
+    private static void writeLitematic(NbtStreamWriter out, Volume volume, int regionCount) throws IOException {
+        Spec spec = volume.spec();
+        int regions = Math.min(regionCount, spec.width());
+        long nonAir = 0L;
+        for (int value : volume.indices()) {
+            if (value != 0) {
+                nonAir++;
+            }
+        }
+
+        out.beginRoot();
+        out.putInt("Version", LITEMATIC_VERSION);
+        out.putInt("MinecraftDataVersion", DATA_VERSION);
+        out.beginCompound("Metadata");
+        out.putString("Name", "synthetic");
+        out.putString("Author", "EasyBuild");
+        out.putString("Description", describe(spec));
+        out.putInt("RegionCount", regions);
+        out.putLong("TotalBlocks", nonAir);
+        out.putLong("TotalVolume", spec.volume());
+        out.put("EnclosingSize", vector(spec.width(), spec.height(), spec.length()));
+        out.end();
+
+        out.beginCompound("Regions");
+        int bits = paletteBits(volume.palette().size());
+        ListTag palette = new ListTag();
+        for (BlockState state : volume.palette()) {
+            palette.add(NbtUtils.writeBlockState(state));
+        }
+        for (int region = 0; region < regions; region++) {
+            int fromX = spec.width() * region / regions;
+            int toX = spec.width() * (region + 1) / regions;
+            int regionWidth = toX - fromX;
+            int[] local = new int[regionWidth * spec.height() * spec.length()];
+            List<int[]> blockEntities = new ArrayList<>();
+            int cursor = 0;
+            for (int y = 0; y < spec.height(); y++) {
+                for (int z = 0; z < spec.length(); z++) {
+                    for (int x = fromX; x < toX; x++) {
+                        int index = volume.index(x, y, z);
+                        local[cursor++] = volume.indices()[index];
+                        if (volume.blockEntities().get(index)) {
+                            blockEntities.add(new int[]{x - fromX, y, z});
+                        }
+                    }
+                }
+            }
+
+            out.beginCompound(regions == 1 ? "main" : "region_" + region);
+            out.put("Position", vector(fromX, 0, 0));
+            out.put("Size", vector(regionWidth, spec.height(), spec.length()));
+            out.put("BlockStatePalette", palette);
+            out.putLongArray("BlockStates", pack(local, bits));
+            out.beginList("TileEntities", Tag.TAG_COMPOUND, blockEntities.size());
+            for (int[] pos : blockEntities) {
+                out.beginElement();
+                out.putInt("x", pos[0]);
+                out.putInt("y", pos[1]);
+                out.putInt("z", pos[2]);
+                out.putString("id", "minecraft:chest");
+                out.put("Items", chestItems());
+                out.end();
+            }
+            out.beginList("Entities", Tag.TAG_COMPOUND, 0);
+            out.end();
+        }
+        out.end();
+        out.end();
+    }
+
+    private static void writeStructure(NbtStreamWriter out, Volume volume) throws IOException {
+        Spec spec = volume.spec();
+        out.beginRoot();
+        out.putInt("DataVersion", DATA_VERSION);
+        out.beginList("size", Tag.TAG_INT, 3);
+        out.writeInt(spec.width());
+        out.writeInt(spec.height());
+        out.writeInt(spec.length());
+
+        ListTag palette = new ListTag();
+        for (BlockState state : volume.palette()) {
+            palette.add(NbtUtils.writeBlockState(state));
+        }
+        out.put("palette", palette);
+
+        int[] indices = volume.indices();
+        out.beginList("blocks", Tag.TAG_COMPOUND, indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            out.beginElement();
+            out.beginList("pos", Tag.TAG_INT, 3);
+            out.writeInt(i % spec.width());
+            out.writeInt(i / (spec.width() * spec.length()));
+            out.writeInt((i / spec.width()) % spec.length());
+            out.putInt("state", indices[i]);
+            if (volume.blockEntities().get(i)) {
+                CompoundTag nbt = new CompoundTag();
+                nbt.putString("id", "minecraft:chest");
+                nbt.put("Items", chestItems());
+                out.put("nbt", nbt);
+            }
+            out.end();
+        }
+        out.beginList("entities", Tag.TAG_COMPOUND, 0);
+        out.end();
+    }
+
+    private static ListTag chestItems() {
+        CompoundTag stack = new CompoundTag();
+        stack.putByte("Slot", (byte) 0);
+        stack.putString("id", "minecraft:cobblestone");
+        stack.putInt("count", 1);
+        ListTag items = new ListTag();
+        items.add(stack);
+        return items;
+    }
+
+    private static CompoundTag vector(int x, int y, int z) {
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("x", x);
+        tag.putInt("y", y);
+        tag.putInt("z", z);
+        return tag;
+    }
+
+    private static String describe(Spec spec) {
+        return String.format(Locale.ROOT, "%dx%dx%d, palette %d, air %.2f, block entities %.3f, seed %d",
+                spec.width(), spec.height(), spec.length(), spec.paletteSize(), spec.airRatio(),
+                spec.blockEntityDensity(), spec.seed());
+    }
+
+    /**
+     * Writes schematics into {@code --out} (default {@code build/synthetic-schematics}).
+     * <p>
+     * Without {@code --size} a standard set is written: cubes of roughly 1k, 100k, 1M and 10M blocks with palettes of
+     * 16 and 256 states in every format; structure files stop at 1M blocks. Options: {@code --format
+     * sponge|litematic|litematic_multi_region|structure|all}, {@code --size N|WxHxL}, {@code --palette N},
+     * {@code --air R}, {@code --block-entities R}, {@code --regions N}, {@code --seed N}.
+     */
+    public static void main(String[] args) throws IOException {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        Path outDir = Path.of("build", "synthetic-schematics");
+        List<Format> formats = List.of(Format.values());
+        int[] size = null;
+        int paletteSize = 0;
+        double air = 0.3;
+        double blockEntities = 0.0;
+        int regions = 8;
+        long seed = 42L;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--out" -> outDir = Path.of(value);
+                case "--format" -> formats = "all".equalsIgnoreCase(value)
+                        ? List.of(Format.values())
+                        : List.of(Format.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--size" -> size = parseSize(value);
+                case "--palette" -> paletteSize = Integer.parseInt(value);
+                case "--air" -> air = Double.parseDouble(value);
+                case "--block-entities" -> blockEntities = Double.parseDouble(value);
+                case "--regions" -> regions = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        List<Spec> specs = new ArrayList<>();
+        if (size != null) {
+            for (int palette : paletteSize > 0 ? new int[]{paletteSize} : DEFAULT_PALETTES) {
+                specs.add(new Spec(size[0], size[1], size[2], palette, blockEntities, air, regions, seed));
+            }
+        } else {
+            for (int cube : DEFAULT_SIZES) {
+                for (int palette : paletteSize > 0 ? new int[]{paletteSize} : DEFAULT_PALETTES) {
+                    specs.add(new Spec(cube, cube, cube, palette, blockEntities, air, regions, seed));
+                }
+            }
+        }
+
+        for (Spec spec : specs) {
+            Volume volume = generate(spec);
+            for (Format format : formats) {
+                if (size == null && format == Format.STRUCTURE && spec.volume() > 1_000_000) {
+                    continue;
+                }
+                String name = String.format(Locale.ROOT, "%s_%dx%dx%d_p%d%s",
+                        format.name().toLowerCase(Locale.ROOT), spec.width(), spec.height(), spec.length(),
+                        spec.paletteSize(), format.extension());
+                Path file = write(outDir.resolve(name), format, volume);
+                System.out.printf(Locale.ROOT, "%s (%d blocks, %d KiB)%n", file, spec.volume(), Files.size(file) / 1024);
+            }
+        }
+    }
+
+    private static int[] parseSize(String value) {
+        String[] parts = value.toLowerCase(Locale.ROOT).split("x");
+        if (parts.length == 1) {
+            int edge = Integer.parseInt(parts[0]);
+            return new int[]{edge, edge, edge};
+        }
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Size must be N or WxHxL: " + value);
+        }
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+
+    /**
+     * Minimal NBT writer over a gzip stream. Containers are opened and closed explicitly, so lists and compounds can be
+     * emitted element by element without building the tag tree; small subtrees are written through {@link Tag#write}.
+     */
+    private static final class NbtStreamWriter implements AutoCloseable {
+
+        private final DataOutputStream out;
+
+        private NbtStreamWriter(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+        void beginRoot() throws IOException {
+            beginCompound("");
+        }
+
+        void beginCompound(String name) throws IOException {
+            header(Tag.TAG_COMPOUND, name);
+        }
+
+        /**
+         * Starts an unnamed compound inside a list of compounds.
+         */
+        void beginElement() {
+        }
+
+        void beginList(String name, byte elementType, int size) throws IOException {
+            header(Tag.TAG_LIST, name);
+            out.writeByte(size == 0 ? Tag.TAG_END : elementType);
+            out.writeInt(size);
+        }
+
+        /**
+         * Closes the innermost compound.
+         */
+        void end() throws IOException {
+            out.writeByte(Tag.TAG_END);
+        }
+
+        void put(String name, Tag tag) throws IOException {
+            header(tag.getId(), name);
+            tag.write(out);
+        }
+
+        void putInt(String name, int value) throws IOException {
+            header(Tag.TAG_INT, name);
+            out.writeInt(value);
+        }
+
+        void putLong(String name, long value) throws IOException {
+            header(Tag.TAG_LONG, name);
+            out.writeLong(value);
+        }
+
+        void putShort(String name, short value) throws IOException {
+            header(Tag.TAG_SHORT, name);
+            out.writeShort(value);
+        }
+
+        void putString(String name, String value) throws IOException {
+            header(Tag.TAG_STRING, name);
+            out.writeUTF(value);
+        }
+
+        void putByteArray(String name, byte[] value) throws IOException {
+            header(Tag.TAG_BYTE_ARRAY, name);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+
+        void putIntArray(String name, int[] value) throws IOException {
+            header(Tag.TAG_INT_ARRAY, name);
+            out.writeInt(value.length);
+            for (int element : value) {
+                out.writeInt(element);
+            }
+        }
+
+        void putLongArray(String name, long[] value) throws IOException {
+            header(Tag.TAG_LONG_ARRAY, name);
+            out.writeInt(value.length);
+            for (long element : value) {
+                out.writeLong(element);
+            }
+        }
+
+        /**
+         * Writes a bare int payload, for elements of an int list.
+         */
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        private void header(byte type, String name) throws IOException {
+            out.writeByte(type);
+            out.writeUTF(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
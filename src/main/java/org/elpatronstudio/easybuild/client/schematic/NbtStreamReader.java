@@ -0,0 +1,255 @@
+package org.elpatronstudio.easybuild.client.schematic;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.Tag;
+import net.minecraft.nbt.TagType;
+import net.minecraft.nbt.TagTypes;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pull reader over a (possibly gzip compressed) NBT stream.
+ * <p>
+ * The caller walks a compound with {@link #nextEntry()} and decides per entry whether to read it, descend into it or
+ * {@link #skip()} it, so only the tags a format needs are ever materialized. Large arrays can be decoded in place
+ * instead of being read into a tag first.
+ */
+final class NbtStreamReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int GZIP_MAGIC = 0x1F8B;
+
+    private final DataInputStream in;
+    private final NbtAccounter accounter = NbtAccounter.unlimitedHeap();
+    private final byte[] chunk = new byte[8192];
+    private byte type;
+    private String name = "";
+
+    private NbtStreamReader(InputStream input) {
+        this.in = new DataInputStream(input);
+    }
+
+    /**
+     * Opens {@code path}, detecting gzip compression from the header, and positions the reader inside the root
+     * compound.
+     */
+    static NbtStreamReader open(Path path) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            buffered.mark(2);
+            int magic = (buffered.read() << 8) | buffered.read();
+            buffered.reset();
+            return open(magic == GZIP_MAGIC
+                    ? new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE)
+                    : buffered);
+        } catch (IOException ex) {
+            buffered.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the root header from an uncompressed stream and positions the reader inside the root compound.
+     */
+    static NbtStreamReader open(InputStream input) throws IOException {
+        NbtStreamReader reader = new NbtStreamReader(input);
+        if (reader.in.readByte() != Tag.TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound");
+        }
+        reader.in.readUTF();
+        return reader;
+    }
+
+    /**
+     * Advances to the next entry of the current compound; returns {@code false} at its end.
+     */
+    boolean nextEntry() throws IOException {
+        type = in.readByte();
+        if (type == Tag.TAG_END) {
+            name = "";
+            return false;
+        }
+        name = in.readUTF();
+        return true;
+    }
+
+    byte type() {
+        return type;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void skip() throws IOException {
+        TagTypes.getType(type).skip(in, accounter);
+    }
+
+    Tag readTag() throws IOException {
+        return TagTypes.getType(type).load(in, accounter);
+    }
+
+    /**
+     * Reads a numeric entry as int; any other entry is skipped and reads as {@code 0}.
+     */
+    int readInt() throws IOException {
+        return switch (type) {
+            case Tag.TAG_BYTE -> in.readByte();
+            case Tag.TAG_SHORT -> in.readShort();
+            case Tag.TAG_INT -> in.readInt();
+            case Tag.TAG_LONG -> (int) in.readLong();
+            default -> {
+                skip();
+                yield 0;
+            }
+        };
+    }
+
+    /**
+     * Reads an int list or int array entry; any other entry is skipped and reads as {@code null}.
+     */
+    int[] readInts() throws IOException {
+        if (type == Tag.TAG_INT_ARRAY) {
+            int[] values = new int[in.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readInt();
+            }
+            return values;
+        }
+        if (type == Tag.TAG_LIST) {
+            byte elementType = in.readByte();
+            int size = in.readInt();
+            if (elementType != Tag.TAG_INT) {
+                skipElements(elementType, size);
+                return null;
+            }
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = in.readInt();
+            }
+            return values;
+        }
+        skip();
+        return null;
+    }
+
+    /**
+     * Reads a long array entry; any other entry is skipped and reads as {@code null}.
+     */
+    long[] readLongs() throws IOException {
+        if (type != Tag.TAG_LONG_ARRAY) {
+            skip();
+            return null;
+        }
+        long[] values = new long[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    /**
+     * Reads a compound entry; any other entry is skipped and reads as {@code null}.
+     */
+    CompoundTag readCompound() throws IOException {
+        if (type != Tag.TAG_COMPOUND) {
+            skip();
+            return null;
+        }
+        return CompoundTag.TYPE.load(in, accounter);
+    }
+
+    /**
+     * Reads a list of compounds; any other entry is skipped and reads as an empty list.
+     */
+    List<CompoundTag> readCompoundList() throws IOException {
+        int size = beginCompoundList();
+        List<CompoundTag> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(CompoundTag.TYPE.load(in, accounter));
+        }
+        return result;
+    }
+
+    /**
+     * Starts a list of compounds and returns its size; the caller then walks each element with {@link #nextEntry()}.
+     * Any other entry is skipped and reads as an empty list.
+     */
+    int beginCompoundList() throws IOException {
+        if (type != Tag.TAG_LIST) {
+            skip();
+            return 0;
+        }
+        byte elementType = in.readByte();
+        int size = in.readInt();
+        if (elementType != Tag.TAG_COMPOUND) {
+            skipElements(elementType, size);
+            return 0;
+        }
+        return size;
+    }
+
+    /**
+     * Decodes a byte array entry of varints straight from the stream. The first {@code entries} values are passed to
+     * {@code sink} if {@code keep} allows them; the rest are consumed. A varint cut off by the end of the array is
+     * dropped. Returns the number of complete varints, or {@code 0} after skipping any other entry.
+     */
+    int readVarInts(int entries, boolean[] keep, PaletteIndexDecoder.Sink sink) throws IOException {
+        if (type != Tag.TAG_BYTE_ARRAY) {
+            skip();
+            return 0;
+        }
+        int remaining = in.readInt();
+        int voxel = 0;
+        int value = 0;
+        int shift = 0;
+        while (remaining > 0) {
+            int read = Math.min(remaining, chunk.length);
+            in.readFully(chunk, 0, read);
+            remaining -= read;
+            for (int i = 0; i < read; i++) {
+                byte b = chunk[i];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (voxel < entries && PaletteIndexDecoder.kept(keep, value)) {
+                        sink.accept(voxel, value);
+                    }
+                    voxel++;
+                    value = 0;
+                    shift = 0;
+                } else {
+                    shift += 7;
+                    if (shift > 28) {
+                        throw new IOException("VarInt too big");
+                    }
+                }
+            }
+        }
+        return voxel;
+    }
+
+    private void skipElements(byte elementType, int size) throws IOException {
+        if (elementType == Tag.TAG_END) {
+            return;
+        }
+        TagType<?> elementTagType = TagTypes.getType(elementType);
+        for (int i = 0; i < size; i++) {
+            elementTagType.skip(in, accounter);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
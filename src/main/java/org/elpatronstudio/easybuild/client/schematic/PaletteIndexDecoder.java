@@ -0,0 +1,123 @@
+package org.elpatronstudio.easybuild.client.schematic;
+
+import net.minecraft.world.level.block.state.BlockState;
+import org.elpatronstudio.easybuild.server.job.BlockPlacementException;
+
+import java.util.List;
+
+/**
+ * Streams palette indices out of packed block data into a {@link Sink} without materializing an index array.
+ * <p>
+ * Indices are tested against a keep mask before the sink sees them, so air can be dropped before any object is
+ * created for it. Bit widths that divide 64 never straddle two longs and are read word by word, skipping all-zero
+ * words in one step; other widths go through a rolling 64-bit window so each long is loaded exactly once.
+ */
+final class PaletteIndexDecoder {
+
+    private PaletteIndexDecoder() {
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        void accept(int voxel, int paletteIndex);
+    }
+
+    /**
+     * Bits per entry used by Litematica and long-array Sponge data for a palette of {@code paletteSize} states.
+     */
+    static int bitsFor(int paletteSize) {
+        return Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(1, paletteSize) - 1));
+    }
+
+    /**
+     * Mask of palette indices to deliver: everything with {@code includeAir}, otherwise only non-air states. Indices
+     * beyond the palette are never delivered.
+     */
+    static boolean[] keepMask(List<BlockState> palette, boolean includeAir) {
+        boolean[] keep = new boolean[palette.size()];
+        for (int i = 0; i < keep.length; i++) {
+            keep[i] = includeAir || !palette.get(i).isAir();
+        }
+        return keep;
+    }
+
+    /**
+     * Unpacks {@code entries} indices of {@code bits} each, laid out back to back from the low bits up, and passes the
+     * kept ones to {@code sink}. A {@code null} mask keeps everything.
+     */
+    static void unpack(long[] packed, int entries, int bits, boolean[] keep, Sink sink) throws BlockPlacementException {
+        long requiredLongs = ((long) entries * bits + 63) >>> 6;
+        if (packed.length < requiredLongs) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData ist kürzer als erwartet");
+        }
+        if (Long.SIZE % bits == 0) {
+            unpackAligned(packed, entries, bits, keep, sink);
+        } else {
+            unpackSpanning(packed, entries, bits, keep, sink);
+        }
+    }
+
+    /**
+     * Passes the kept entries of an already decoded index list to {@code sink}.
+     */
+    static void forEach(int[] indices, int entries, boolean[] keep, Sink sink) {
+        for (int voxel = 0; voxel < entries; voxel++) {
+            int index = indices[voxel];
+            if (kept(keep, index)) {
+                sink.accept(voxel, index);
+            }
+        }
+    }
+
+    static boolean kept(boolean[] keep, int index) {
+        return keep == null || (index >= 0 && index < keep.length && keep[index]);
+    }
+
+    private static void unpackAligned(long[] packed, int entries, int bits, boolean[] keep, Sink sink) {
+        int perLong = Long.SIZE / bits;
+        long mask = (1L << bits) - 1;
+        boolean zeroKept = kept(keep, 0);
+        int voxel = 0;
+        for (int i = 0; voxel < entries; i++) {
+            long word = packed[i];
+            int end = Math.min(entries, voxel + perLong);
+            if (word == 0L && !zeroKept) {
+                // A whole word of index 0, usually air
+                voxel = end;
+                continue;
+            }
+            for (; voxel < end; voxel++) {
+                int index = (int) (word & mask);
+                word >>>= bits;
+                if (kept(keep, index)) {
+                    sink.accept(voxel, index);
+                }
+            }
+        }
+    }
+
+    private static void unpackSpanning(long[] packed, int entries, int bits, boolean[] keep, Sink sink) {
+        long mask = (1L << bits) - 1;
+        long window = 0L;
+        int available = 0;
+        int next = 0;
+        for (int voxel = 0; voxel < entries; voxel++) {
+            int index;
+            if (available >= bits) {
+                index = (int) (window & mask);
+                window >>>= bits;
+                available -= bits;
+            } else {
+                // Low bits come from what is left of the previous long, the rest from the next one
+                long word = packed[next++];
+                index = (int) ((window | (word << available)) & mask);
+                int used = bits - available;
+                window = word >>> used;
+                available = Long.SIZE - used;
+            }
+            if (kept(keep, index)) {
+                sink.accept(voxel, index);
+            }
+        }
+    }
+}
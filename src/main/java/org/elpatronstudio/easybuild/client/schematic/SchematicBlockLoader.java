@@ -2,7 +2,7 @@ package org.elpatronstudio.easybuild.client.schematic;
 
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
 import com.mojang.logging.LogUtils;
-import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.commands.arguments.blocks.BlockStateParser;
 import net.minecraft.core.BlockPos;
@@ -10,11 +10,9 @@ import net.minecraft.core.Direction;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.IntArrayTag;
 import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.NbtAccounter;
-import net.minecraft.nbt.NbtIo;
 import net.minecraft.nbt.Tag;
-import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.level.block.Block;
@@ -35,6 +33,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Lightweight schematic parser that converts local schematic data to world block instances
@@ -43,228 +46,432 @@ import java.util.Optional;
 public final class SchematicBlockLoader {
 
     private static final Logger LOGGER = LogUtils.getLogger();
+    /**
+     * Packed block data below this many bits is decoded on the calling thread; forking costs more than it saves.
+     */
+    private static final long PARALLEL_MIN_BITS = 1L << 20;
+    private static final ForkJoinPool DECODE_POOL = createDecodePool();
 
     private SchematicBlockLoader() {
     }
 
+    private static ForkJoinPool createDecodePool() {
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger counter = new AtomicInteger();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("EasyBuild-SchematicDecoder-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
     public static Result load(LocalPlayer player, SchematicFileEntry entry, AnchorPos anchor, boolean includeAir) throws BlockPlacementException {
+        return load(player.level().registryAccess().lookupOrThrow(Registries.BLOCK), entry, anchor, includeAir);
+    }
+
+    /**
+     * Loads {@code entry} resolving block states through {@code blockLookup}; needs no client world.
+     */
+    static Result load(HolderLookup<Block> blockLookup, SchematicFileEntry entry, AnchorPos anchor, boolean includeAir) throws BlockPlacementException {
         Path path = entry.path();
         if (!Files.isRegularFile(path)) {
             throw new BlockPlacementException("SCHEMATIC_FILE_MISSING", "Datei nicht gefunden: " + entry.id());
         }
 
-        CompoundTag rootTag = readSchematicTag(path);
         Rotation rotation = rotationFor(anchor.facing());
         BlockPos anchorPos = new BlockPos(anchor.x(), anchor.y(), anchor.z());
 
         String lowerName = path.getFileName().toString().toLowerCase(Locale.ROOT);
-        if (lowerName.endsWith(".schem")) {
-            return loadSpongeFormat(player, rootTag, anchorPos, rotation, includeAir, entry.displayName());
-        }
-        if (lowerName.endsWith(".nbt")) {
-            return loadStructureFormat(player, rootTag, anchorPos, rotation, includeAir, entry.displayName());
+        if (!lowerName.endsWith(".schem") && !lowerName.endsWith(".nbt") && !lowerName.endsWith(".litematic")) {
+            throw new BlockPlacementException("SCHEMATIC_FORMAT", "Nicht unterstütztes Format: " + lowerName);
         }
-        if (lowerName.endsWith(".litematic")) {
-            return loadLitematicFormat(player, rootTag, anchorPos, rotation, includeAir, entry.displayName());
+
+        // The file is walked as a stream: only the tags a format needs are read, and block data is decoded as it
+        // arrives instead of materializing the whole tag tree first
+        try (NbtStreamReader reader = NbtStreamReader.open(path)) {
+            if (lowerName.endsWith(".schem")) {
+                return loadSpongeFormat(blockLookup, reader, anchorPos, rotation, includeAir, entry.displayName());
+            }
+            if (lowerName.endsWith(".nbt")) {
+                return loadStructureFormat(blockLookup, reader, anchorPos, rotation, includeAir, entry.displayName());
+            }
+            return loadLitematicFormat(blockLookup, reader, anchorPos, rotation, includeAir, entry.displayName());
+        } catch (IOException ex) {
+            throw new BlockPlacementException("SCHEMATIC_IO", "Fehler beim Lesen der Schematic: " + ex.getMessage());
         }
-        throw new BlockPlacementException("SCHEMATIC_FORMAT", "Nicht unterstütztes Format: " + lowerName);
     }
 
-    private static Result loadSpongeFormat(LocalPlayer player, CompoundTag root, BlockPos anchorPos,
-                                           Rotation rotation, boolean includeAir, String displayName) throws BlockPlacementException {
-        CompoundTag paletteTag = root.getCompound("Palette")
-                .orElseThrow(() -> new BlockPlacementException("SCHEMATIC_INVALID", "Palette fehlt in der Schematic"));
+    private static Result loadSpongeFormat(HolderLookup<Block> blockLookup, NbtStreamReader reader, BlockPos anchorPos,
+                                           Rotation rotation, boolean includeAir, String displayName) throws IOException, BlockPlacementException {
+        int width = 0;
+        int height = 0;
+        int length = 0;
+        CompoundTag paletteTag = null;
+        SpongePlacements placements = null;
+        int decodedEntries = 0;
+        IntArrayList bufferedData = null;
+        long[] packedData = null;
+        List<CompoundTag> blockEntityTags = List.of();
+        List<CompoundTag> tileEntityTags = List.of();
+
+        // Offsets shift every block by the same amount and cancel out once finalizePlacements normalizes to the
+        // minimum corner of the Width x Height x Length box, so they are not read
+        while (reader.nextEntry()) {
+            switch (reader.name()) {
+                case "Width" -> width = reader.readInt();
+                case "Height" -> height = reader.readInt();
+                case "Length" -> length = reader.readInt();
+                case "Palette" -> paletteTag = reader.readCompound();
+                case "BlockData" -> {
+                    if (reader.type() == Tag.TAG_LONG_ARRAY) {
+                        packedData = reader.readLongs();
+                    } else if (reader.type() == Tag.TAG_BYTE_ARRAY && paletteTag != null && width > 0 && height > 0 && length > 0) {
+                        // Palette and size are known, so blocks are decoded straight from the stream
+                        placements = new SpongePlacements(parsePalette(paletteTag, blockLookup), width, length, rotation, includeAir);
+                        decodedEntries = reader.readVarInts(width * height * length, placements.keep, placements);
+                    } else if (reader.type() == Tag.TAG_BYTE_ARRAY) {
+                        IntArrayList buffer = new IntArrayList();
+                        decodedEntries = reader.readVarInts(Integer.MAX_VALUE, null, (voxel, index) -> buffer.add(index));
+                        bufferedData = buffer;
+                    } else {
+                        reader.skip();
+                    }
+                }
+                case "BlockEntities" -> blockEntityTags = reader.readCompoundList();
+                case "TileEntities" -> tileEntityTags = reader.readCompoundList();
+                default -> reader.skip();
+            }
+        }
 
-        if (root.getByteArray("BlockData").isEmpty() && root.getLongArray("BlockData").isEmpty()) {
+        if (paletteTag == null) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "Palette fehlt in der Schematic");
+        }
+        if (placements == null && bufferedData == null && packedData == null) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData fehlt in der Schematic");
         }
-
-        int width = root.getInt("Width").orElse(0);
-        int height = root.getInt("Height").orElse(0);
-        int length = root.getInt("Length").orElse(0);
         if (width <= 0 || height <= 0 || length <= 0) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "Ungültige Dimensionsangaben in der Schematic");
         }
 
-        int offsetX = root.getInt("OffsetX").orElse(0);
-        int offsetY = root.getInt("OffsetY").orElse(0);
-        int offsetZ = root.getInt("OffsetZ").orElse(0);
-
-        HolderLookup<Block> blockLookup = player.level().registryAccess().lookupOrThrow(Registries.BLOCK);
-        Map<Integer, BlockState> palette = parsePalette(paletteTag, blockLookup);
         int volume = width * height * length;
-        int[] indices = decodeBlockData(root, volume, palette.size());
-        Map<BlockPos, CompoundTag> blockEntities = extractBlockEntities(root);
-
-        List<IntermediatePlacement> intermediate = new ArrayList<>(indices.length);
-        BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
-        BlockPos.MutableBlockPos rotatedPos = new BlockPos.MutableBlockPos();
-
-        for (int index = 0; index < indices.length; index++) {
-            BlockState state = palette.getOrDefault(indices[index], Blocks.AIR.defaultBlockState());
-            int x = index % width;
-            int temp = index / width;
-            int z = temp % length;
-            int y = temp / length;
-
-            BlockPos original = new BlockPos(x, y, z);
-            mutable.set(x - offsetX, y - offsetY, z - offsetZ);
-            BlockPos rotated = rotateAroundOrigin(mutable, rotation, rotatedPos);
-            intermediate.add(new IntermediatePlacement(original, new BlockPos(rotated), state));
+        if (placements == null) {
+            placements = new SpongePlacements(parsePalette(paletteTag, blockLookup), width, length, rotation, includeAir);
+            if (bufferedData != null) {
+                if (decodedEntries >= volume) {
+                    PaletteIndexDecoder.forEach(bufferedData.elements(), volume, placements.keep, placements);
+                }
+            } else {
+                PaletteIndexDecoder.unpack(packedData, volume, PaletteIndexDecoder.bitsFor(placements.palette.size()), placements.keep, placements);
+                decodedEntries = volume;
+            }
+        }
+        if (decodedEntries < volume) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData ist kürzer als erwartet");
         }
 
-        return finalizePlacements(intermediate, blockEntities, anchorPos, rotation, includeAir, displayName);
+        Map<BlockPos, CompoundTag> blockEntities = blockEntityMap(blockEntityTags, tileEntityTags, BlockPos.ZERO);
+        BlockPos localMin = rotatedMin(BlockPos.ZERO, new BlockPos(width - 1, height - 1, length - 1), rotation);
+        return finalizePlacements(placements.intermediate, blockEntities, localMin, anchorPos, rotation, includeAir, displayName);
     }
 
-    private static Result loadStructureFormat(LocalPlayer player, CompoundTag root, BlockPos anchorPos,
-                                              Rotation rotation, boolean includeAir, String displayName) throws BlockPlacementException {
-        ListTag sizeTag = root.getListOrEmpty("size");
-        int width = sizeTag.getIntOr(0, 0);
-        int height = sizeTag.getIntOr(1, 0);
-        int length = sizeTag.getIntOr(2, 0);
+    private static Result loadStructureFormat(HolderLookup<Block> blockLookup, NbtStreamReader reader, BlockPos anchorPos,
+                                              Rotation rotation, boolean includeAir, String displayName) throws IOException, BlockPlacementException {
+        int[] size = null;
+        List<CompoundTag> paletteEntries = List.of();
+        ListTag palettes = null;
+        // Blocks may precede the palette in the file, so they are kept as packed (x, y, z, state) ints until it is known
+        IntArrayList blockData = new IntArrayList();
+        Map<Integer, CompoundTag> blockNbt = new HashMap<>();
+
+        while (reader.nextEntry()) {
+            switch (reader.name()) {
+                case "size" -> size = reader.readInts();
+                case "palette" -> paletteEntries = reader.readCompoundList();
+                case "palettes" -> palettes = reader.readTag() instanceof ListTag list ? list : null;
+                case "blocks" -> {
+                    int count = reader.beginCompoundList();
+                    blockData.ensureCapacity(count * 4);
+                    for (int i = 0; i < count; i++) {
+                        readStructureBlock(reader, blockData, blockNbt);
+                    }
+                }
+                default -> reader.skip();
+            }
+        }
+
+        int width = size != null && size.length > 0 ? size[0] : 0;
+        int height = size != null && size.length > 1 ? size[1] : 0;
+        int length = size != null && size.length > 2 ? size[2] : 0;
         if (width <= 0 || height <= 0 || length <= 0) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "Ungültige Dimensionsangaben in der Struktur");
         }
 
-        HolderLookup.Provider registries = player.level().registryAccess();
-        HolderLookup<Block> blockLookup = registries.lookupOrThrow(Registries.BLOCK);
         List<BlockState> palette = new ArrayList<>();
-        Optional<ListTag> paletteList = root.getList("palettes");
-        ListTag primaryPalette = paletteList.filter(tag -> !tag.isEmpty()).map(tag -> tag.getListOrEmpty(0)).orElseGet(() -> root.getListOrEmpty("palette"));
-        for (int i = 0; i < primaryPalette.size(); i++) {
-            palette.add(net.minecraft.nbt.NbtUtils.readBlockState(blockLookup, primaryPalette.getCompoundOrEmpty(i)));
+        ListTag primaryPalette = palettes != null && !palettes.isEmpty() ? palettes.getListOrEmpty(0) : null;
+        if (primaryPalette != null) {
+            for (int i = 0; i < primaryPalette.size(); i++) {
+                palette.add(net.minecraft.nbt.NbtUtils.readBlockState(blockLookup, primaryPalette.getCompoundOrEmpty(i)));
+            }
+        } else {
+            for (CompoundTag entry : paletteEntries) {
+                palette.add(net.minecraft.nbt.NbtUtils.readBlockState(blockLookup, entry));
+            }
         }
         if (palette.isEmpty()) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "Palette konnte nicht gelesen werden");
         }
 
-        ListTag blocksTag = root.getListOrEmpty("blocks");
-        if (blocksTag.isEmpty()) {
+        int blockCount = blockData.size() / 4;
+        if (blockCount == 0) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "Blockliste ist leer");
         }
 
-        List<IntermediatePlacement> intermediate = new ArrayList<>(blocksTag.size());
+        List<IntermediatePlacement> intermediate = new ArrayList<>(includeAir ? blockCount : 16);
         Map<BlockPos, CompoundTag> blockEntities = new HashMap<>();
         BlockPos.MutableBlockPos rotatedBuffer = new BlockPos.MutableBlockPos();
-
-        for (int i = 0; i < blocksTag.size(); i++) {
-            Tag element = blocksTag.get(i);
-            Optional<CompoundTag> blockTagOptional = element.asCompound();
-            if (blockTagOptional.isEmpty()) {
-                continue;
-            }
-            CompoundTag blockTag = blockTagOptional.get();
-            ListTag posList = blockTag.getListOrEmpty("pos");
-            BlockPos original = new BlockPos(posList.getIntOr(0, 0), posList.getIntOr(1, 0), posList.getIntOr(2, 0));
-            int paletteIndex = blockTag.getIntOr("state", 0);
+        int[] packed = blockData.elements();
+
+        boolean[] keep = PaletteIndexDecoder.keepMask(palette, includeAir);
+        // Bounds span every listed block, air included, so dropping air does not move the rest
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+
+        for (int i = 0; i < blockCount; i++) {
+            int paletteIndex = packed[i * 4 + 3];
             if (paletteIndex < 0 || paletteIndex >= palette.size()) {
                 throw new BlockPlacementException("SCHEMATIC_INVALID", "Palette-Index " + paletteIndex + " außerhalb des gültigen Bereichs");
             }
+            minX = Math.min(minX, packed[i * 4]);
+            minY = Math.min(minY, packed[i * 4 + 1]);
+            minZ = Math.min(minZ, packed[i * 4 + 2]);
+            maxX = Math.max(maxX, packed[i * 4]);
+            maxY = Math.max(maxY, packed[i * 4 + 1]);
+            maxZ = Math.max(maxZ, packed[i * 4 + 2]);
+            if (!keep[paletteIndex]) {
+                continue;
+            }
             BlockState state = palette.get(paletteIndex);
+            BlockPos original = new BlockPos(packed[i * 4], packed[i * 4 + 1], packed[i * 4 + 2]);
             BlockPos rotated = rotateAroundOrigin(original, rotation, rotatedBuffer);
             intermediate.add(new IntermediatePlacement(original, new BlockPos(rotated), state));
-            blockTag.getCompound("nbt").ifPresent(nbt -> blockEntities.put(original, nbt));
+            CompoundTag nbt = blockNbt.get(i);
+            if (nbt != null) {
+                blockEntities.put(original, nbt);
+            }
         }
 
-        return finalizePlacements(intermediate, blockEntities, anchorPos, rotation, includeAir, displayName);
+        BlockPos localMin = rotatedMin(new BlockPos(minX, minY, minZ), new BlockPos(maxX, maxY, maxZ), rotation);
+        return finalizePlacements(intermediate, blockEntities, localMin, anchorPos, rotation, includeAir, displayName);
     }
 
-    private static Result loadLitematicFormat(LocalPlayer player, CompoundTag root, BlockPos anchorPos,
-                                              Rotation rotation, boolean includeAir, String displayName) throws BlockPlacementException {
-        HolderLookup<Block> blockLookup = player.level().registryAccess().lookupOrThrow(Registries.BLOCK);
-        CompoundTag regionsTag = root.getCompound("Regions")
-                .orElseThrow(() -> new BlockPlacementException("SCHEMATIC_INVALID", "Regions fehlt in der Litematic"));
+    private static void readStructureBlock(NbtStreamReader reader, IntArrayList blockData, Map<Integer, CompoundTag> blockNbt) throws IOException {
+        int[] pos = null;
+        int state = 0;
+        CompoundTag nbt = null;
+        while (reader.nextEntry()) {
+            switch (reader.name()) {
+                case "pos" -> pos = reader.readInts();
+                case "state" -> state = reader.readInt();
+                case "nbt" -> nbt = reader.readCompound();
+                default -> reader.skip();
+            }
+        }
+        int ordinal = blockData.size() / 4;
+        blockData.add(pos != null && pos.length > 0 ? pos[0] : 0);
+        blockData.add(pos != null && pos.length > 1 ? pos[1] : 0);
+        blockData.add(pos != null && pos.length > 2 ? pos[2] : 0);
+        blockData.add(state);
+        if (nbt != null) {
+            blockNbt.put(ordinal, nbt);
+        }
+    }
 
-        List<IntermediatePlacement> intermediate = new ArrayList<>();
+    private static Result loadLitematicFormat(HolderLookup<Block> blockLookup, NbtStreamReader reader, BlockPos anchorPos,
+                                              Rotation rotation, boolean includeAir, String displayName) throws IOException, BlockPlacementException {
+        List<LitematicRegion> regions = null;
+        while (reader.nextEntry()) {
+            if ("Regions".equals(reader.name()) && reader.type() == Tag.TAG_COMPOUND) {
+                regions = new ArrayList<>();
+                while (reader.nextEntry()) {
+                    if (reader.type() == Tag.TAG_COMPOUND) {
+                        regions.add(readLitematicRegion(reader, reader.name()));
+                    } else {
+                        reader.skip();
+                    }
+                }
+            } else {
+                reader.skip();
+            }
+        }
+        if (regions == null) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "Regions fehlt in der Litematic");
+        }
+
+        List<RegionBlocks> decoded = decodeLitematicRegions(blockLookup, regions, rotation, includeAir);
+        int total = 0;
+        for (RegionBlocks region : decoded) {
+            total += region.placements().size();
+        }
+        List<IntermediatePlacement> intermediate = new ArrayList<>(total);
         Map<BlockPos, CompoundTag> blockEntities = new HashMap<>();
-        BlockPos.MutableBlockPos rotatedBuffer = new BlockPos.MutableBlockPos();
-        BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+        BlockPos localMin = null;
+        for (RegionBlocks region : decoded) {
+            intermediate.addAll(region.placements());
+            blockEntities.putAll(region.blockEntities());
+            BlockPos regionMin = region.localMin();
+            localMin = localMin == null ? regionMin : new BlockPos(Math.min(localMin.getX(), regionMin.getX()),
+                    Math.min(localMin.getY(), regionMin.getY()), Math.min(localMin.getZ(), regionMin.getZ()));
+        }
+        if (localMin == null) {
+            localMin = BlockPos.ZERO;
+        }
 
-        for (Map.Entry<String, Tag> entry : regionsTag.entrySet()) {
-            Optional<CompoundTag> regionOptional = entry.getValue().asCompound();
-            if (regionOptional.isEmpty()) {
-                continue;
-            }
-            CompoundTag regionTag = regionOptional.get();
-            BlockPos regionOrigin = readBlockPos(regionTag, "Position");
-            BlockPos regionSize = readBlockPos(regionTag, "Size");
-
-            int width = Math.abs(regionSize.getX());
-            int height = Math.abs(regionSize.getY());
-            int length = Math.abs(regionSize.getZ());
-            if (width <= 0 || height <= 0 || length <= 0) {
-                throw new BlockPlacementException("SCHEMATIC_INVALID", "Ungültige Regiongröße in " + entry.getKey());
-            }
+        return finalizePlacements(intermediate, blockEntities, localMin, anchorPos, rotation, includeAir, displayName);
+    }
 
-            List<BlockState> palette = readLitematicPalette(regionTag, blockLookup);
-            if (palette.isEmpty()) {
-                continue;
+    /**
+     * Decodes every region into its own buffer. Large multi-region files are decoded in parallel on
+     * {@link #DECODE_POOL}; results are returned in file order so merging stays deterministic.
+     */
+    private static List<RegionBlocks> decodeLitematicRegions(HolderLookup<Block> blockLookup, List<LitematicRegion> regions,
+                                                             Rotation rotation, boolean includeAir) throws BlockPlacementException {
+        long packedBits = 0L;
+        for (LitematicRegion region : regions) {
+            packedBits += region.blockStates() != null ? (long) region.blockStates().length * Long.SIZE : 0L;
+        }
+        if (regions.size() < 2 || packedBits < PARALLEL_MIN_BITS) {
+            List<RegionBlocks> decoded = new ArrayList<>(regions.size());
+            for (LitematicRegion region : regions) {
+                decoded.add(decodeLitematicRegion(blockLookup, region, rotation, includeAir));
             }
+            return decoded;
+        }
 
-            long[] packedStates = regionTag.getLongArray("BlockStates")
-                    .orElseThrow(() -> new BlockPlacementException("SCHEMATIC_INVALID", "BlockStates fehlen in Region " + entry.getKey()));
-            int expected = width * height * length;
-            int[] indices = unpackBlockData(packedStates, expected, palette.size());
-
-            for (int index = 0; index < indices.length; index++) {
-                BlockState state = palette.get(indices[index]);
-                int x = index % width;
-                int temp = index / width;
-                int z = temp % length;
-                int y = temp / length;
-
-                int localX = regionOrigin.getX() + x;
-                int localY = regionOrigin.getY() + y;
-                int localZ = regionOrigin.getZ() + z;
-
-                BlockPos original = new BlockPos(localX, localY, localZ);
-                mutable.set(localX, localY, localZ);
-                BlockPos rotated = rotateAroundOrigin(mutable, rotation, rotatedBuffer);
-                intermediate.add(new IntermediatePlacement(original, new BlockPos(rotated), state));
+        List<ForkJoinTask<RegionBlocks>> tasks = new ArrayList<>(regions.size());
+        for (LitematicRegion region : regions) {
+            tasks.add(DECODE_POOL.submit(() -> decodeLitematicRegion(blockLookup, region, rotation, includeAir)));
+        }
+        List<RegionBlocks> decoded = new ArrayList<>(regions.size());
+        try {
+            for (ForkJoinTask<RegionBlocks> task : tasks) {
+                decoded.add(task.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            tasks.forEach(task -> task.cancel(true));
+            throw new BlockPlacementException("SCHEMATIC_IO", "Laden der Schematic wurde unterbrochen");
+        } catch (ExecutionException ex) {
+            tasks.forEach(task -> task.cancel(true));
+            if (ex.getCause() instanceof BlockPlacementException cause) {
+                throw cause;
             }
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "Region konnte nicht gelesen werden: " + ex.getCause());
+        }
+        return decoded;
+    }
 
-            blockEntities.putAll(extractBlockEntitiesFromLitematic(regionTag, regionOrigin));
+    private static RegionBlocks decodeLitematicRegion(HolderLookup<Block> blockLookup, LitematicRegion region,
+                                                      Rotation rotation, boolean includeAir) throws BlockPlacementException {
+        BlockPos regionOrigin = readBlockPos(region.position(), "Position");
+        BlockPos regionSize = readBlockPos(region.size(), "Size");
+
+        int width = Math.abs(regionSize.getX());
+        int height = Math.abs(regionSize.getY());
+        int length = Math.abs(regionSize.getZ());
+        if (width <= 0 || height <= 0 || length <= 0) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "Ungültige Regiongröße in " + region.name());
         }
 
-        return finalizePlacements(intermediate, blockEntities, anchorPos, rotation, includeAir, displayName);
+        List<BlockState> palette = readLitematicPalette(region.palette(), blockLookup);
+        if (region.blockStates() == null) {
+            throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockStates fehlen in Region " + region.name());
+        }
+        int expected = width * height * length;
+
+        List<IntermediatePlacement> placements = new ArrayList<>(includeAir ? expected : 16);
+        BlockPos.MutableBlockPos rotatedBuffer = new BlockPos.MutableBlockPos();
+        BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+        int originX = regionOrigin.getX();
+        int originY = regionOrigin.getY();
+        int originZ = regionOrigin.getZ();
+        PaletteIndexDecoder.unpack(region.blockStates(), expected, PaletteIndexDecoder.bitsFor(palette.size()),
+                PaletteIndexDecoder.keepMask(palette, includeAir), (index, paletteIndex) -> {
+                    int x = index % width;
+                    int temp = index / width;
+                    int z = temp % length;
+                    int y = temp / length;
+
+                    int localX = originX + x;
+                    int localY = originY + y;
+                    int localZ = originZ + z;
+
+                    BlockPos original = new BlockPos(localX, localY, localZ);
+                    mutable.set(localX, localY, localZ);
+                    BlockPos rotated = rotateAroundOrigin(mutable, rotation, rotatedBuffer);
+                    placements.add(new IntermediatePlacement(original, new BlockPos(rotated), palette.get(paletteIndex)));
+                });
+
+        BlockPos localMin = rotatedMin(regionOrigin, regionOrigin.offset(width - 1, height - 1, length - 1), rotation);
+        return new RegionBlocks(placements, blockEntityMap(region.blockEntities(), region.tileEntities(), regionOrigin), localMin);
     }
 
-    private static List<BlockState> readLitematicPalette(CompoundTag regionTag, HolderLookup<Block> lookup) throws BlockPlacementException {
-        ListTag paletteTag = regionTag.getListOrEmpty("BlockStatePalette");
+    /**
+     * Reads the parts of a litematic region the loader uses and skips entities and scheduled ticks.
+     */
+    private static LitematicRegion readLitematicRegion(NbtStreamReader reader, String name) throws IOException {
+        Tag position = null;
+        Tag size = null;
+        List<CompoundTag> palette = List.of();
+        long[] blockStates = null;
+        List<CompoundTag> blockEntities = List.of();
+        List<CompoundTag> tileEntities = List.of();
+        while (reader.nextEntry()) {
+            switch (reader.name()) {
+                case "Position" -> position = reader.readTag();
+                case "Size" -> size = reader.readTag();
+                case "BlockStatePalette" -> palette = reader.readCompoundList();
+                case "BlockStates" -> blockStates = reader.readLongs();
+                case "BlockEntities" -> blockEntities = reader.readCompoundList();
+                case "TileEntities" -> tileEntities = reader.readCompoundList();
+                default -> reader.skip();
+            }
+        }
+        return new LitematicRegion(name, position, size, palette, blockStates, blockEntities, tileEntities);
+    }
+
+    private static List<BlockState> readLitematicPalette(List<CompoundTag> paletteTag, HolderLookup<Block> lookup) throws BlockPlacementException {
         if (paletteTag.isEmpty()) {
             throw new BlockPlacementException("SCHEMATIC_INVALID", "Palette fehlt oder ist leer");
         }
         List<BlockState> palette = new ArrayList<>(paletteTag.size());
-        for (int i = 0; i < paletteTag.size(); i++) {
-            CompoundTag entry = paletteTag.getCompoundOrEmpty(i);
+        for (CompoundTag entry : paletteTag) {
             palette.add(net.minecraft.nbt.NbtUtils.readBlockState(lookup, entry));
         }
         return palette;
     }
 
-    private static Map<BlockPos, CompoundTag> extractBlockEntitiesFromLitematic(CompoundTag regionTag, BlockPos regionOrigin) {
+    /**
+     * Maps block entity entries to their positions offset by {@code origin}, preferring the current
+     * {@code BlockEntities} list and falling back to the legacy {@code TileEntities} one.
+     */
+    private static Map<BlockPos, CompoundTag> blockEntityMap(List<CompoundTag> blockEntities, List<CompoundTag> tileEntities, BlockPos origin) {
         Map<BlockPos, CompoundTag> result = new HashMap<>();
-        for (String key : new String[]{"BlockEntities", "TileEntities"}) {
-            Optional<ListTag> listOptional = regionTag.getList(key);
-            if (listOptional.isEmpty()) {
-                continue;
-            }
-            for (Tag element : listOptional.get()) {
-                Optional<CompoundTag> tagOptional = element.asCompound();
-                if (tagOptional.isEmpty()) {
-                    continue;
-                }
-                CompoundTag entry = tagOptional.get();
+        for (List<CompoundTag> entries : List.of(blockEntities, tileEntities)) {
+            for (CompoundTag entry : entries) {
                 BlockPos localPos = readLocalPos(entry);
                 if (localPos == null) {
                     continue;
                 }
-                BlockPos absolute = localPos.offset(regionOrigin.getX(), regionOrigin.getY(), regionOrigin.getZ());
                 CompoundTag data = entry.copy();
                 data.getString("Id").ifPresent(id -> data.putString("id", id));
                 data.remove("Id");
                 data.remove("Pos");
-                result.put(absolute, data);
+                result.put(localPos.offset(origin.getX(), origin.getY(), origin.getZ()), data);
             }
             if (!result.isEmpty()) {
                 break;
@@ -273,10 +480,8 @@ public final class SchematicBlockLoader {
         return result;
     }
 
-    private static BlockPos readBlockPos(CompoundTag tag, String key) throws BlockPlacementException {
-        Optional<CompoundTag> compound = tag.getCompound(key);
-        if (compound.isPresent()) {
-            CompoundTag posTag = compound.get();
+    private static BlockPos readBlockPos(Tag tag, String key) throws BlockPlacementException {
+        if (tag instanceof CompoundTag posTag) {
             int x = posTag.getInt("x").orElse(Integer.MIN_VALUE);
             int y = posTag.getInt("y").orElse(Integer.MIN_VALUE);
             int z = posTag.getInt("z").orElse(Integer.MIN_VALUE);
@@ -285,8 +490,7 @@ public final class SchematicBlockLoader {
             }
         }
 
-        ListTag list = tag.getListOrEmpty(key);
-        if (!list.isEmpty()) {
+        if (tag instanceof ListTag list && !list.isEmpty()) {
             int x = list.getIntOr(0, Integer.MIN_VALUE);
             int y = list.getIntOr(1, Integer.MIN_VALUE);
             int z = list.getIntOr(2, Integer.MIN_VALUE);
@@ -295,9 +499,8 @@ public final class SchematicBlockLoader {
             }
         }
 
-        Optional<int[]> array = tag.getIntArray(key);
-        if (array.isPresent()) {
-            int[] values = array.get();
+        if (tag instanceof IntArrayTag array) {
+            int[] values = array.getAsIntArray();
             if (values.length >= 3) {
                 return new BlockPos(values[0], values[1], values[2]);
             }
@@ -306,44 +509,14 @@ public final class SchematicBlockLoader {
         throw new BlockPlacementException("SCHEMATIC_INVALID", "Tag '" + key + "' fehlt oder ist ungültig");
     }
 
-    private static int[] unpackBlockData(long[] packed, int expectedEntries, int paletteSize) throws BlockPlacementException {
-        int[] indices = new int[expectedEntries];
-        if (paletteSize <= 0) {
-            return indices;
-        }
-
-        int bits = Math.max(2, Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(1, paletteSize) - 1));
-        int mask = (1 << bits) - 1;
-        int bitIndex = 0;
-
-        for (int entry = 0; entry < expectedEntries; entry++) {
-            int longIndex = bitIndex >> 6;
-            if (longIndex >= packed.length) {
-                throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData ist kürzer als erwartet");
-            }
-
-            int bitOffset = bitIndex & 63;
-            int endBit = bitOffset + bits;
-            long base = packed[longIndex] >>> bitOffset;
-
-            if (endBit > 64) {
-                int overflowBits = endBit - 64;
-                if (longIndex + 1 >= packed.length) {
-                    throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData ist kürzer als erwartet");
-                }
-                long next = packed[longIndex + 1] & ((1L << overflowBits) - 1);
-                base |= next << (bits - overflowBits);
-            }
-
-            indices[entry] = (int) (base & mask);
-            bitIndex += bits;
-        }
-
-        return indices;
-    }
-
-    private static Result finalizePlacements(List<IntermediatePlacement> intermediate,
+    /**
+     * Rotates, filters and anchors the decoded placements. {@code localMin} is the rotated minimum corner of the whole
+     * schematic, not just of the placements that survived decoding, so air dropped at the edges does not shift the
+     * build.
+     */
+    static Result finalizePlacements(List<IntermediatePlacement> intermediate,
                                              Map<BlockPos, CompoundTag> blockEntities,
+                                             BlockPos localMin,
                                              BlockPos anchorPos,
                                              Rotation rotation,
                                              boolean includeAir,
@@ -352,18 +525,7 @@ public final class SchematicBlockLoader {
             return new Result(displayName, List.of(), anchorPos, anchorPos);
         }
 
-        int localMinX = Integer.MAX_VALUE;
-        int localMinY = Integer.MAX_VALUE;
-        int localMinZ = Integer.MAX_VALUE;
-
-        for (IntermediatePlacement placement : intermediate) {
-            BlockPos rotated = placement.rotated();
-            localMinX = Math.min(localMinX, rotated.getX());
-            localMinY = Math.min(localMinY, rotated.getY());
-            localMinZ = Math.min(localMinZ, rotated.getZ());
-        }
-
-        BlockPos translation = new BlockPos(-localMinX, -localMinY, -localMinZ);
+        BlockPos translation = new BlockPos(-localMin.getX(), -localMin.getY(), -localMin.getZ());
         List<BlockInstance> placements = new ArrayList<>(intermediate.size());
         BlockPos minWorld = null;
         BlockPos maxWorld = null;
@@ -423,22 +585,7 @@ public final class SchematicBlockLoader {
         };
     }
 
-    private static CompoundTag readSchematicTag(Path path) throws BlockPlacementException {
-        try {
-            return NbtIo.readCompressed(path, NbtAccounter.unlimitedHeap());
-        } catch (IOException ex) {
-            try {
-                CompoundTag fallback = NbtIo.read(path);
-                if (fallback != null) {
-                    return fallback;
-                }
-            } catch (IOException ignored) {
-            }
-            throw new BlockPlacementException("SCHEMATIC_IO", "Fehler beim Lesen der Schematic: " + ex.getMessage());
-        }
-    }
-
-    private static Map<Integer, BlockState> parsePalette(CompoundTag paletteTag, HolderLookup<Block> lookup) throws BlockPlacementException {
+    static Map<Integer, BlockState> parsePalette(CompoundTag paletteTag, HolderLookup<Block> lookup) throws BlockPlacementException {
         Map<Integer, BlockState> palette = new HashMap<>();
         for (Map.Entry<String, Tag> entry : paletteTag.entrySet()) {
             String stateString = entry.getKey();
@@ -458,58 +605,6 @@ public final class SchematicBlockLoader {
         return palette;
     }
 
-    private static int[] decodeBlockData(CompoundTag root, int expectedEntries, int paletteSize) throws BlockPlacementException {
-        Optional<byte[]> rawBytes = root.getByteArray("BlockData");
-        if (rawBytes.isPresent()) {
-            FriendlyByteBuf buffer = new FriendlyByteBuf(Unpooled.wrappedBuffer(rawBytes.get()));
-            int[] indices = new int[expectedEntries];
-            for (int i = 0; i < expectedEntries; i++) {
-                if (!buffer.isReadable()) {
-                    throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData ist kürzer als erwartet");
-                }
-                indices[i] = buffer.readVarInt();
-            }
-            return indices;
-        }
-
-        Optional<long[]> packedData = root.getLongArray("BlockData");
-        if (packedData.isPresent()) {
-            return unpackBlockData(packedData.get(), expectedEntries, paletteSize);
-        }
-
-        throw new BlockPlacementException("SCHEMATIC_INVALID", "BlockData fehlt oder hat ein unbekanntes Format");
-    }
-
-    private static Map<BlockPos, CompoundTag> extractBlockEntities(CompoundTag root) {
-        Map<BlockPos, CompoundTag> map = new HashMap<>();
-        for (String key : new String[]{"BlockEntities", "TileEntities"}) {
-            Optional<ListTag> optionalList = root.getList(key);
-            if (optionalList.isEmpty()) {
-                continue;
-            }
-            for (Tag element : optionalList.get()) {
-                Optional<CompoundTag> optionalEntry = element.asCompound();
-                if (optionalEntry.isEmpty()) {
-                    continue;
-                }
-                CompoundTag entry = optionalEntry.get();
-                BlockPos pos = readLocalPos(entry);
-                if (pos == null) {
-                    continue;
-                }
-                CompoundTag data = entry.copy();
-                data.getString("Id").ifPresent(id -> data.putString("id", id));
-                data.remove("Id");
-                data.remove("Pos");
-                map.put(pos, data);
-            }
-            if (!map.isEmpty()) {
-                break;
-            }
-        }
-        return map;
-    }
-
     private static BlockPos readLocalPos(CompoundTag tag) {
         Optional<int[]> posArray = tag.getIntArray("Pos");
         if (posArray.isPresent() && posArray.get().length >= 3) {
@@ -539,6 +634,17 @@ public final class SchematicBlockLoader {
         return null;
     }
 
+    /**
+     * Minimum corner of the box spanned by {@code min} and {@code max} after rotating it around the origin.
+     */
+    static BlockPos rotatedMin(BlockPos min, BlockPos max, Rotation rotation) {
+        BlockPos.MutableBlockPos buffer = new BlockPos.MutableBlockPos();
+        BlockPos first = rotateAroundOrigin(min, rotation, buffer).immutable();
+        BlockPos second = rotateAroundOrigin(max, rotation, buffer);
+        return new BlockPos(Math.min(first.getX(), second.getX()), Math.min(first.getY(), second.getY()),
+                Math.min(first.getZ(), second.getZ()));
+    }
+
     private static BlockPos rotateAroundOrigin(BlockPos pos, Rotation rotation, BlockPos.MutableBlockPos result) {
         int x = pos.getX();
         int y = pos.getY();
@@ -557,6 +663,60 @@ public final class SchematicBlockLoader {
     public record Result(String displayName, List<BlockInstance> blocks, BlockPos minCorner, BlockPos maxCorner) {
     }
 
-    private record IntermediatePlacement(BlockPos original, BlockPos rotated, BlockState state) {
+    record IntermediatePlacement(BlockPos original, BlockPos rotated, BlockState state) {
+    }
+
+    /**
+     * Turns decoded Sponge palette indices into intermediate placements.
+     */
+    private static final class SpongePlacements implements PaletteIndexDecoder.Sink {
+        private final Map<Integer, BlockState> palette;
+        private final boolean[] keep;
+        private final int width;
+        private final int length;
+        private final Rotation rotation;
+        private final List<IntermediatePlacement> intermediate = new ArrayList<>();
+        private final BlockPos.MutableBlockPos rotatedPos = new BlockPos.MutableBlockPos();
+
+        private SpongePlacements(Map<Integer, BlockState> palette, int width, int length, Rotation rotation, boolean includeAir) {
+            this.palette = palette;
+            this.width = width;
+            this.length = length;
+            this.rotation = rotation;
+            if (includeAir) {
+                this.keep = null;
+            } else {
+                int maxIndex = 0;
+                for (int index : palette.keySet()) {
+                    maxIndex = Math.max(maxIndex, index);
+                }
+                this.keep = new boolean[maxIndex + 1];
+                palette.forEach((index, state) -> {
+                    if (index >= 0) {
+                        keep[index] = !state.isAir();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void accept(int voxel, int paletteIndex) {
+            BlockState state = palette.getOrDefault(paletteIndex, Blocks.AIR.defaultBlockState());
+            int x = voxel % width;
+            int temp = voxel / width;
+            int z = temp % length;
+            int y = temp / length;
+
+            BlockPos original = new BlockPos(x, y, z);
+            BlockPos rotated = rotateAroundOrigin(original, rotation, rotatedPos);
+            intermediate.add(new IntermediatePlacement(original, new BlockPos(rotated), state));
+        }
+    }
+
+    private record RegionBlocks(List<IntermediatePlacement> placements, Map<BlockPos, CompoundTag> blockEntities, BlockPos localMin) {
+    }
+
+    private record LitematicRegion(String name, Tag position, Tag size, List<CompoundTag> palette, long[] blockStates,
+                                   List<CompoundTag> blockEntities, List<CompoundTag> tileEntities) {
     }
 }
@@ -4,10 +4,14 @@ import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.players.NameAndId;
 import net.minecraft.world.level.GameType;
-import net.minecraft.world.level.Level;
 import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 import net.neoforged.neoforge.event.tick.LevelTickEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
+import org.elpatronstudio.easybuild.server.command.EasyBuildCommands;
 import org.elpatronstudio.easybuild.server.job.BuildJobManager;
 
 /**
@@ -21,7 +25,15 @@ public final class ServerLifecycleEvents {
     public static void register() {
         NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onPlayerLogout);
         NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onLevelTick);
+        NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onServerTick);
+        NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onServerStarted);
+        NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onServerStopping);
         NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onPlayerLogin);
+        NeoForge.EVENT_BUS.addListener(ServerLifecycleEvents::onRegisterCommands);
+    }
+
+    private static void onRegisterCommands(RegisterCommandsEvent event) {
+        EasyBuildCommands.register(event.getDispatcher());
     }
 
     private static void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
@@ -45,8 +57,20 @@ public final class ServerLifecycleEvents {
     }
 
     private static void onLevelTick(LevelTickEvent.Post event) {
-        if (event.getLevel() instanceof ServerLevel serverLevel && serverLevel.dimension().equals(Level.OVERWORLD)) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
             BuildJobManager.get().tickServer(serverLevel);
         }
     }
+
+    private static void onServerTick(ServerTickEvent.Post event) {
+        BuildJobManager.get().onServerTick(event.getServer());
+    }
+
+    private static void onServerStarted(ServerStartedEvent event) {
+        BuildJobManager.get().onServerStarted(event.getServer());
+    }
+
+    private static void onServerStopping(ServerStoppingEvent event) {
+        BuildJobManager.get().onServerStopping(event.getServer());
+    }
 }
@@ -0,0 +1,59 @@
+package org.elpatronstudio.easybuild.server.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.elpatronstudio.easybuild.server.job.BuildEngineStats;
+import org.elpatronstudio.easybuild.server.job.BuildJobManager;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Server commands under {@code /easybuild}, restricted to operators.
+ */
+public final class EasyBuildCommands {
+
+    private static final int REQUIRED_PERMISSION_LEVEL = 2;
+
+    private EasyBuildCommands() {
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("easybuild")
+                .requires(source -> source.hasPermission(REQUIRED_PERMISSION_LEVEL))
+                .then(Commands.literal("stats")
+                        .executes(context -> showStats(context.getSource()))));
+    }
+
+    private static int showStats(CommandSourceStack source) {
+        BuildEngineStats stats = BuildJobManager.get().stats();
+        StringBuilder locks = new StringBuilder();
+        for (Map.Entry<ResourceKey<Level>, Integer> entry : stats.locksPerDimension().entrySet()) {
+            if (!locks.isEmpty()) {
+                locks.append(", ");
+            }
+            locks.append(entry.getKey().location()).append('=').append(entry.getValue());
+        }
+
+        String message = String.format(Locale.ROOT,
+                "[EasyBuild] Statistik\n"
+                        + "Jobs: %d aktiv, %d wartend\n"
+                        + "Durchsatz: %.0f Blöcke/s (5 s), %d insgesamt\n"
+                        + "Platzierung pro Tick: Ø %.2f ms, p99 %.2f ms (60 s)\n"
+                        + "Planung: Ø %.0f ms, p99 %.0f ms\n"
+                        + "Ticks ohne Fortschritt: %d\n"
+                        + "Sperren: %s",
+                stats.activeJobs(), stats.queuedJobs(),
+                stats.blocksPerSecond(), stats.totalBlocks(),
+                stats.placementMsAvg(), stats.placementMsP99(),
+                stats.planningMsAvg(), stats.planningMsP99(),
+                stats.stalledTicks(),
+                locks.isEmpty() ? "keine" : locks);
+        source.sendSuccess(() -> Component.literal(message), false);
+        return stats.activeJobs() + stats.queuedJobs();
+    }
+}
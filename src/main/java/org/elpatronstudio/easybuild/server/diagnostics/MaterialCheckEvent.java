@@ -0,0 +1,32 @@
+package org.elpatronstudio.easybuild.server.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering a server-side material check.
+ */
+@Name("org.elpatronstudio.easybuild.MaterialCheck")
+@Label("EasyBuild Material Check")
+@Category("EasyBuild")
+@Description("Counts a player's inventory and linked containers against a schematic's requirements")
+public final class MaterialCheckEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Schematic")
+    public String schematic;
+
+    @Label("Required Items")
+    public int requiredItems;
+
+    @Label("Containers")
+    public int containers;
+
+    @Label("Missing Items")
+    public int missingItems;
+}
@@ -0,0 +1,38 @@
+package org.elpatronstudio.easybuild.server.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one tick slice of a running job, placement or rollback.
+ */
+@Name("org.elpatronstudio.easybuild.PlacementBatch")
+@Label("EasyBuild Placement Batch")
+@Category("EasyBuild")
+@Description("Blocks written by a build job during one server tick")
+public final class PlacementBatchEvent extends Event {
+
+    @Label("Job Id")
+    public String jobId;
+
+    @Label("Dimension")
+    public String dimension;
+
+    @Label("Rollback")
+    public boolean rollback;
+
+    @Label("Blocks Written")
+    public int written;
+
+    @Label("Blocks Placed")
+    public int placed;
+
+    @Label("Blocks Total")
+    public int total;
+
+    @Label("Finished")
+    public boolean finished;
+}
@@ -0,0 +1,29 @@
+package org.elpatronstudio.easybuild.server.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering one run of the block placement planner.
+ */
+@Name("org.elpatronstudio.easybuild.Planning")
+@Label("EasyBuild Planning")
+@Category("EasyBuild")
+@Description("Turns a schematic into an ordered block placement plan")
+public final class PlanningEvent extends Event {
+
+    @Label("Job Id")
+    public String jobId;
+
+    @Label("Schematic")
+    public String schematic;
+
+    @Label("Blocks")
+    public int blocks;
+
+    @Label("Plan Cache Hit")
+    public boolean cached;
+}
@@ -0,0 +1,32 @@
+package org.elpatronstudio.easybuild.server.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event covering a region lock acquisition attempt.
+ */
+@Name("org.elpatronstudio.easybuild.RegionLock")
+@Label("EasyBuild Region Lock")
+@Category("EasyBuild")
+@Description("Conflict check and registration of a job's region lock")
+public final class RegionLockEvent extends Event {
+
+    @Label("Job Id")
+    public String jobId;
+
+    @Label("Dimension")
+    public String dimension;
+
+    @Label("Sections")
+    public int sections;
+
+    @Label("Acquired")
+    public boolean acquired;
+
+    @Label("Conflicting Job Id")
+    public String conflictJobId;
+}
@@ -0,0 +1,193 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.ProblemReporter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.storage.TagValueInput;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies block entity data of written placements in batches, one chunk at a time.
+ * <p>
+ * Changed placements carrying a block entity tag are collected per chunk and released once every placement of that
+ * chunk has been handled, so containers, signs and spawners are filled after their blocks exist. Each batch loads its
+ * block entities, marks the chunk unsaved once and sends the update packets to the chunk's watchers in one go instead
+ * of going through {@link BlockEntity#setChanged()} and a block update per entity. The stage is bounded per tick.
+ * Placements are kept as plan indices so {@link #oldestPending()} can tell a checkpoint where unfinished work starts.
+ */
+final class BlockEntityStage {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int MAX_BLOCK_ENTITIES_PER_TICK = 1024;
+    private static final int DEADLINE_CHECK_INTERVAL = 16;
+
+    private final ServerLevel level;
+    private final List<BlockPlacement> placements;
+    private final Long2IntOpenHashMap remainingPerChunk = new Long2IntOpenHashMap();
+    private final Long2ObjectOpenHashMap<IntArrayList> changedPerChunk = new Long2ObjectOpenHashMap<>();
+    private final ArrayDeque<ChunkBatch> ready = new ArrayDeque<>();
+    private int applied;
+
+    private BlockEntityStage(ServerLevel level, List<BlockPlacement> placements) {
+        this.level = level;
+        this.placements = placements;
+        for (BlockPlacement placement : placements) {
+            remainingPerChunk.addTo(chunkKey(placement.position()), 1);
+        }
+    }
+
+    /**
+     * Creates a stage for {@code placements}, or returns {@code null} if none of them carries block entity data.
+     */
+    static BlockEntityStage forPlacements(ServerLevel level, List<BlockPlacement> placements) {
+        for (BlockPlacement placement : placements) {
+            if (placement.blockEntityTag() != null) {
+                return new BlockEntityStage(level, placements);
+            }
+        }
+        return null;
+    }
+
+    void record(int index, boolean changed) {
+        BlockPlacement placement = placements.get(index);
+        long chunkKey = chunkKey(placement.position());
+        if (changed && placement.blockEntityTag() != null) {
+            changedPerChunk.computeIfAbsent(chunkKey, key -> new IntArrayList()).add(index);
+        }
+
+        int left = remainingPerChunk.addTo(chunkKey, -1) - 1;
+        if (left > 0) {
+            return;
+        }
+        remainingPerChunk.remove(chunkKey);
+        IntArrayList finished = changedPerChunk.remove(chunkKey);
+        if (finished != null) {
+            ready.add(new ChunkBatch(chunkKey, finished));
+        }
+    }
+
+    boolean isIdle() {
+        return ready.isEmpty();
+    }
+
+    int pending() {
+        int count = 0;
+        for (ChunkBatch batch : ready) {
+            count += batch.indices.size() - batch.next;
+        }
+        return count;
+    }
+
+    /**
+     * Lowest plan index whose data has not been applied yet, including chunks still being written, or
+     * {@link Integer#MAX_VALUE} if nothing is outstanding.
+     */
+    int oldestPending() {
+        ChunkBatch first = ready.peek();
+        int oldest = first != null ? first.indices.getInt(first.next) : Integer.MAX_VALUE;
+        for (IntArrayList changed : changedPerChunk.values()) {
+            oldest = Math.min(oldest, changed.getInt(0));
+        }
+        return oldest;
+    }
+
+    int applied() {
+        return applied;
+    }
+
+    /**
+     * Applies block entity data of finished chunks until the cap or the deadline is reached. A chunk interrupted by the
+     * deadline is continued next tick.
+     */
+    void run(long deadlineNanos, boolean enforceDeadline) {
+        int processed = 0;
+        while (!ready.isEmpty() && processed < MAX_BLOCK_ENTITIES_PER_TICK) {
+            ChunkBatch batch = ready.peek();
+            LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(batch.chunkKey), ChunkPos.getZ(batch.chunkKey));
+            if (chunk == null) {
+                // Unloaded since it was written; the data cannot be applied without loading it again
+                LOGGER.warn("Chunk [{}, {}] was unloaded before block entity data could be applied, dropping {} entries",
+                        ChunkPos.getX(batch.chunkKey), ChunkPos.getZ(batch.chunkKey), batch.indices.size() - batch.next);
+                ready.poll();
+                continue;
+            }
+
+            List<Packet<ClientGamePacketListener>> updates = new ArrayList<>();
+            while (batch.next < batch.indices.size() && processed < MAX_BLOCK_ENTITIES_PER_TICK) {
+                if (enforceDeadline && processed > 0 && processed % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                    break;
+                }
+                BlockPlacement placement = placements.get(batch.indices.getInt(batch.next++));
+                processed++;
+                Packet<ClientGamePacketListener> update = apply(chunk, placement);
+                if (update != null) {
+                    updates.add(update);
+                }
+            }
+
+            if (!updates.isEmpty()) {
+                chunk.markUnsaved();
+                for (ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(chunk.getPos(), false)) {
+                    for (Packet<ClientGamePacketListener> update : updates) {
+                        player.connection.send(update);
+                    }
+                }
+            }
+            if (batch.next < batch.indices.size()) {
+                return;
+            }
+            ready.poll();
+        }
+    }
+
+    private Packet<ClientGamePacketListener> apply(LevelChunk chunk, BlockPlacement placement) {
+        BlockPos pos = placement.position();
+        if (chunk.getBlockState(pos) != placement.state()) {
+            // Replaced again since it was written
+            return null;
+        }
+        BlockEntity blockEntity = chunk.getBlockEntity(pos);
+        if (blockEntity == null) {
+            LOGGER.debug("No block entity at {}, dropping its data", pos);
+            return null;
+        }
+
+        try (ProblemReporter.ScopedCollector collector = new ProblemReporter.ScopedCollector(blockEntity.problemPath(), LOGGER)) {
+            blockEntity.loadWithComponents(TagValueInput.create(collector, level.registryAccess(), placement.blockEntityTag()));
+        } catch (Exception ex) {
+            LOGGER.warn("Failed to apply block entity data at {}: {}", pos, ex.getMessage());
+            return null;
+        }
+        applied++;
+        return blockEntity.getUpdatePacket();
+    }
+
+    private static long chunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+
+    private static final class ChunkBatch {
+        private final long chunkKey;
+        private final IntArrayList indices;
+        private int next;
+
+        private ChunkBatch(long chunkKey, IntArrayList indices) {
+            this.chunkKey = chunkKey;
+            this.indices = indices;
+        }
+    }
+}
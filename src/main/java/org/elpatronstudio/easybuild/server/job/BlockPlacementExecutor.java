@@ -3,73 +3,259 @@ package org.elpatronstudio.easybuild.server.job;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
 import org.elpatronstudio.easybuild.core.model.PasteMode;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Executes a {@link BlockPlacementPlan} over multiple server ticks.
+ * <p>
+ * Blocks are written through {@link ServerLevel#setBlock} with vanilla updates unless the {@code deferUpdates} paste
+ * option is set. Then STEP and ATOMIC jobs write straight into section palettes through a {@link SectionBatchWriter}
+ * and the suppressed neighbor updates are replayed by a {@link DeferredUpdatePass} once each chunk is complete. A
+ * {@link WorldDiffStage} ahead of the cursor skips blocks that already match, so repairs only pay for what is actually
+ * broken. Block entity data is applied by a {@link BlockEntityStage} in one batch per finished chunk. Non-atomic jobs
+ * keep a {@link ChunkPreloader} window of forced chunks ahead of the cursor; {@link #close()} must be called once the
+ * job ends to release it. With an {@link UndoJournal} every replaced state is recorded so the job can be rolled back.
  */
-public final class BlockPlacementExecutor {
+public final class BlockPlacementExecutor implements JobExecutor {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 16;
+    private static final int MAX_DIFF_SCAN_PER_TICK = 32_768;
 
     private final ServerLevel level;
     private final List<BlockPlacement> placements;
     private final PasteMode mode;
     private final int blocksPerTick;
+    private final SectionBatchWriter sectionWriter;
+    private final DeferredUpdatePass deferredUpdates;
+    private final BlockEntityStage blockEntities;
+    private final int placementFlags;
+    private final WorldDiffStage diff;
+    private final ChunkPreloader preloader;
+    private final UndoJournal journal;
+
+    private int placed;
 
-    private int cursor;
+    public BlockPlacementExecutor(ServerLevel level, BlockPlacementPlan plan, PasteMode mode, int blocksPerTick, boolean deferUpdates,
+                                  UUID ticketOwner, int preloadChunks) {
+        this(level, plan, mode, blocksPerTick, deferUpdates, ticketOwner, preloadChunks, null);
+    }
 
-    public BlockPlacementExecutor(ServerLevel level, BlockPlacementPlan plan, PasteMode mode, int blocksPerTick) {
+    BlockPlacementExecutor(ServerLevel level, BlockPlacementPlan plan, PasteMode mode, int blocksPerTick, boolean deferUpdates,
+                           UUID ticketOwner, int preloadChunks, UndoJournal journal) {
         this.level = level;
         this.placements = plan.placements();
         this.mode = mode;
         this.blocksPerTick = mode == PasteMode.ATOMIC ? Integer.MAX_VALUE : Math.max(1, blocksPerTick);
-        this.cursor = 0;
+        this.placementFlags = deferUpdates ? DeferredUpdatePass.PLACEMENT_FLAGS : Block.UPDATE_ALL;
+        // Section writes skip neighbor updates entirely, so they are only safe when the deferred pass replays them
+        this.sectionWriter = deferUpdates && mode != PasteMode.SIMULATED
+                ? new SectionBatchWriter(level, placementFlags, journal)
+                : null;
+        this.deferredUpdates = deferUpdates ? new DeferredUpdatePass(level, placements) : null;
+        this.blockEntities = BlockEntityStage.forPlacements(level, placements);
+        this.diff = new WorldDiffStage(level, placements, deferredUpdates, blockEntities);
+        this.preloader = mode != PasteMode.ATOMIC && preloadChunks > 0 && ticketOwner != null
+                ? new ChunkPreloader(level, placements, ticketOwner, preloadChunks)
+                : null;
+        this.journal = journal;
+        this.placed = 0;
     }
 
+    /**
+     * Placements that still change the world; blocks found already matching are excluded as the diff advances.
+     */
+    @Override
     public int totalBlocks() {
-        return placements.size();
+        return placements.size() - diff.unchanged();
     }
 
+    @Override
     public int placedBlocks() {
-        return cursor;
+        return placed;
     }
 
-    public boolean tick() throws BlockPlacementException {
-        if (placements.isEmpty()) {
-            return true;
+    /**
+     * Monotonic counter covering both writes and diffed-away placements, used for stall detection.
+     */
+    @Override
+    public long progressCounter() {
+        return (long) diff.scanned() + placed;
+    }
+
+    /**
+     * Lowest plan index not written yet; a job resumed from here redoes nothing that is already in the world. While a
+     * resumed job is still rescanning, this stays at the cursor it was resumed with, since everything before it is
+     * already counted in {@link #placedBlocks()} or {@link #unchangedBlocks()}.
+     */
+    public int cursor() {
+        return Math.max(diff.lowestOutstanding(), diff.replayEnd());
+    }
+
+    /**
+     * Lowest plan index whose write, block entity data or deferred updates are still outstanding; never above
+     * {@link #cursor()}. A resumed job rescans from here so work queued behind the cursor is not lost.
+     */
+    public int settledCursor() {
+        int settled = diff.lowestOutstanding();
+        if (blockEntities != null) {
+            settled = Math.min(settled, blockEntities.oldestPending());
+        }
+        if (deferredUpdates != null) {
+            settled = Math.min(settled, deferredUpdates.oldestPending());
+        }
+        return settled;
+    }
+
+    public int unchangedBlocks() {
+        return diff.unchanged();
+    }
+
+    /**
+     * Continues a job from a checkpoint, rescanning from {@code settled} up to {@code cursor}. Must be called before the
+     * first tick.
+     */
+    void resumeAt(int settled, int cursor, int placedBefore, int unchangedBefore) {
+        diff.skipTo(Math.min(settled, cursor), cursor, unchangedBefore);
+        placed = placedBefore;
+    }
+
+    @Override
+    public int blocksPerTick() {
+        return blocksPerTick;
+    }
+
+    public int pendingDeferredUpdates() {
+        return deferredUpdates != null ? deferredUpdates.pending() : 0;
+    }
+
+    public int pendingBlockEntities() {
+        return blockEntities != null ? blockEntities.pending() : 0;
+    }
+
+    public int heldChunkTickets() {
+        return preloader != null ? preloader.heldTickets() : 0;
+    }
+
+    /**
+     * Releases chunk tickets held for this job.
+     */
+    @Override
+    public void close() {
+        if (preloader != null) {
+            preloader.releaseAll();
         }
+    }
 
-        int remaining = placements.size() - cursor;
-        int batchSize = Math.min(blocksPerTick, remaining);
-        if (batchSize <= 0) {
-            return true;
+    public boolean tick() throws BlockPlacementException {
+        return tick(Long.MAX_VALUE);
+    }
+
+    /**
+     * Writes up to {@code blocksPerTick} changing blocks but stops early once {@link System#nanoTime()} passes
+     * {@code deadlineNanos}. Placements that already match the world do not count against the batch.
+     * At least one block is attempted per call so jobs keep moving under a tight budget; ATOMIC jobs ignore the deadline.
+     * The job only finishes once the block entity stage and, with deferred updates, the neighbor-update pass have
+     * drained as well.
+     */
+    public boolean tick(long deadlineNanos) throws BlockPlacementException {
+        return tick(deadlineNanos, blocksPerTick);
+    }
+
+    /**
+     * Like {@link #tick(long)} but writes at most {@code blockLimit} blocks instead of the configured
+     * {@code blocksPerTick}; ATOMIC jobs always run to completion.
+     */
+    @Override
+    public boolean tick(long deadlineNanos, int blockLimit) throws BlockPlacementException {
+        int limit = mode == PasteMode.ATOMIC ? Integer.MAX_VALUE : Math.max(1, blockLimit);
+        boolean enforceDeadline = mode != PasteMode.ATOMIC && deadlineNanos != Long.MAX_VALUE;
+        int scanLimit = mode == PasteMode.ATOMIC ? Integer.MAX_VALUE : MAX_DIFF_SCAN_PER_TICK;
+        int written = 0;
+        if (preloader != null) {
+            // Chunks stay forced until their block entity data and deferred updates have been applied as well
+            preloader.update(settledCursor());
         }
+        try {
+            while (written < limit) {
+                if (enforceDeadline && written > 0 && written % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                    break;
+                }
+                if (!diff.hasPending()) {
+                    if (diff.isExhausted()) {
+                        break;
+                    }
+                    diff.scan(limit - written, scanLimit, deadlineNanos, enforceDeadline);
+                    if (!diff.hasPending()) {
+                        BlockPos blocked = diff.blockedAt();
+                        if (blocked != null && mode == PasteMode.ATOMIC) {
+                            throw new BlockPlacementException("CHUNK_UNLOADED", "Chunk nicht geladen bei " + blocked);
+                        }
+                        if (blocked != null) {
+                            return false;
+                        }
+                        // Scan budget used up or plan exhausted; continue next tick
+                        break;
+                    }
+                }
 
-        for (int i = 0; i < batchSize; i++) {
-            BlockPlacement placement = placements.get(cursor);
-            BlockPos pos = placement.position();
-            if (!level.isLoaded(pos)) {
-                if (mode == PasteMode.ATOMIC) {
-                    throw new BlockPlacementException("CHUNK_UNLOADED", "Chunk nicht geladen bei " + pos);
+                int index = diff.nextPending();
+                BlockPlacement placement = placements.get(index);
+                boolean changed = placeBlock(placement);
+                if (deferredUpdates != null) {
+                    deferredUpdates.record(index, changed || diff.isReplay(index));
                 }
-                return false;
+                if (blockEntities != null) {
+                    // A matching state may still hold stale block entity data, so the tag is applied regardless
+                    blockEntities.record(index, changed || placement.blockEntityTag() != null);
+                }
+                if (!diff.isReplay(index)) {
+                    placed++;
+                }
+                written++;
+            }
+        } finally {
+            if (sectionWriter != null) {
+                sectionWriter.flush();
             }
-
-            placeBlock(placement);
-            cursor++;
         }
 
-        return cursor >= placements.size();
+        boolean drained = true;
+        if (blockEntities != null) {
+            blockEntities.run(deadlineNanos, enforceDeadline);
+            drained = blockEntities.isIdle();
+        }
+        if (deferredUpdates != null) {
+            deferredUpdates.run(deadlineNanos, enforceDeadline);
+            drained &= deferredUpdates.isIdle();
+        }
+        return diff.isExhausted() && drained;
     }
 
-    private void placeBlock(BlockPlacement placement) {
+    private boolean placeBlock(BlockPlacement placement) {
         BlockPos pos = placement.position();
-        if (level.getBlockState(pos).equals(placement.state())) {
-            // Already matching, but still counted as placed for progress accuracy
-            return;
+        if (journal != null && placement.blockEntityTag() != null && level.getBlockState(pos) == placement.state()) {
+            // Only the block entity data will be replaced; journal the current contents so a rollback can restore them
+            journal.record(pos, placement.state());
+            return false;
+        }
+        if (sectionWriter != null) {
+            return sectionWriter.write(placement);
         }
 
-        level.setBlock(pos, placement.state(), Block.UPDATE_ALL);
+        BlockState previous = level.getBlockState(pos);
+        if (previous.equals(placement.state())) {
+            // Changed back since the diff ran this tick
+            return false;
+        }
+
+        // Journaled first so the block entity data is captured before setBlock removes it
+        if (journal != null) {
+            journal.record(pos, previous);
+        }
+        return level.setBlock(pos, placement.state(), placementFlags);
     }
 }
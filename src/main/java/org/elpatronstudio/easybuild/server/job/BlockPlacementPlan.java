@@ -9,10 +9,12 @@ public final class BlockPlacementPlan {
 
     private final List<BlockPlacement> placements;
     private final BlockRegion region;
+    private final SectionFootprint footprint;
 
     public BlockPlacementPlan(List<BlockPlacement> placements, BlockRegion region) {
         this.placements = List.copyOf(placements);
         this.region = region;
+        this.footprint = SectionFootprint.of(this.placements);
     }
 
     public List<BlockPlacement> placements() {
@@ -30,4 +32,11 @@ public final class BlockPlacementPlan {
     public BlockRegion region() {
         return region;
     }
+
+    /**
+     * Chunk sections the plan writes to; used for region locks instead of the bounding box.
+     */
+    public SectionFootprint footprint() {
+        return footprint;
+    }
 }
@@ -1,12 +1,12 @@
 package org.elpatronstudio.easybuild.server.job;
 
 import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Mirror;
 import net.minecraft.world.level.block.Rotation;
@@ -17,24 +17,53 @@ import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemp
 import org.elpatronstudio.esaybuildauto.Esaybuildauto;
 import org.elpatronstudio.easybuild.core.model.AnchorPos;
 import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.elpatronstudio.easybuild.server.diagnostics.PlanningEvent;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 
 /**
  * Creates block placement plans from schematic references.
+ * <p>
+ * Planning runs on a worker thread and never sees the level: templates come from the thread-safe
+ * {@link StructureTemplateManager} and their blocks are only rotated with
+ * {@link StructureTemplate#calculateRelativePosition} instead of going through
+ * {@link StructureTemplate#processBlockInfos}, which would hand the live level to structure processors. The planner
+ * never registers processors, so the result is the same as processing without any.
  */
 public final class BlockPlacementPlanner {
 
+    private static final PlanCache PLAN_CACHE = new PlanCache();
+
     private BlockPlacementPlanner() {
     }
 
-    static BlockPlacementPlan plan(ServerLevel level, BuildJob job, JsonObject options) throws BlockPlacementException {
-        StructureTemplate template = resolveTemplate(level, job.schematic());
+    /**
+     * Plans {@code job}, recorded as a {@link PlanningEvent}. Called on the planning pool, where the server profiler is
+     * not active.
+     */
+    static BlockPlacementPlan plan(StructureTemplateManager templates, BuildJob job, JsonObject options) throws BlockPlacementException {
+        PlanningEvent event = new PlanningEvent();
+        event.begin();
+        BlockPlacementPlan plan = null;
+        try {
+            plan = createPlan(templates, job, options, event);
+            return plan;
+        } finally {
+            if (event.shouldCommit()) {
+                event.jobId = job.jobId();
+                event.schematic = job.schematic().schematicId();
+                event.blocks = plan != null ? plan.totalBlocks() : 0;
+                event.commit();
+            }
+        }
+    }
+
+    private static BlockPlacementPlan createPlan(StructureTemplateManager templates, BuildJob job, JsonObject options, PlanningEvent event) throws BlockPlacementException {
+        StructureTemplate template = resolveTemplate(templates, job.schematic());
         if (template == null) {
             throw new BlockPlacementException("SCHEMATIC_NOT_FOUND", "Keine Strukturvorlage für " + job.schematic().schematicId());
         }
@@ -42,48 +71,125 @@ public final class BlockPlacementPlanner {
         AnchorPos anchor = job.anchor();
         BlockPos anchorPos = new BlockPos(anchor.x(), anchor.y(), anchor.z());
         Rotation rotation = rotationFor(anchor.facing());
-        Mirror mirror = Mirror.NONE;
 
         boolean includeAir = options != null && options.has("placeAir") && options.get("placeAir").getAsBoolean();
 
+        PlanCache.Key cacheKey = PlanCache.key(job.schematic(), rotation, includeAir);
+        PlanCache.RelativePlan relative = cacheKey != null ? PLAN_CACHE.get(cacheKey, template) : null;
+        event.cached = relative != null;
+        if (relative == null) {
+            relative = new PlanCache.RelativePlan(template, relativePlacements(template, rotation, includeAir));
+            if (cacheKey != null) {
+                PLAN_CACHE.put(cacheKey, relative);
+            }
+        }
+        List<BlockPlacement> placements = relative.translate(anchorPos);
+
+        boolean hilbert = options != null && options.has("placementOrder")
+                && "hilbert".equalsIgnoreCase(options.get("placementOrder").getAsString());
+        List<BlockPlacement> ordered = orderChunkMajor(placements, hilbert);
+
+        BlockRegion region = BlockRegion.fromPlacements(ordered, anchorPos);
+
+        return new BlockPlacementPlan(ordered, region);
+    }
+
+    /**
+     * Runs the template's blocks through rotation with the anchor at the origin, so the result can be cached and
+     * translated to any anchor. Block entity tags are copied but carry no position yet.
+     */
+    private static List<BlockPlacement> relativePlacements(StructureTemplate template, Rotation rotation, boolean includeAir) throws BlockPlacementException {
+        Mirror mirror = Mirror.NONE;
         StructurePlaceSettings settings = new StructurePlaceSettings()
                 .setMirror(mirror)
                 .setRotation(rotation)
                 .setIgnoreEntities(false);
 
         List<BlockPlacement> placements = new ArrayList<>();
-        List<StructureTemplate.StructureBlockInfo> rawBlocks = extractPrimaryPalette(template);
-        List<StructureTemplate.StructureBlockInfo> processed = StructureTemplate.processBlockInfos(level, anchorPos, anchorPos, settings, rawBlocks, template);
-        for (StructureTemplate.StructureBlockInfo info : processed) {
+        for (StructureTemplate.StructureBlockInfo info : extractPrimaryPalette(template)) {
             BlockState state = info.state().mirror(mirror).rotate(rotation);
             if (!includeAir && state.isAir()) {
                 continue;
             }
 
-            BlockPos worldPos = info.pos().immutable();
+            BlockPos pos = StructureTemplate.calculateRelativePosition(settings, info.pos());
             CompoundTag nbt = info.nbt();
-            if (nbt != null) {
-                nbt = nbt.copy();
-                nbt.putInt("x", worldPos.getX());
-                nbt.putInt("y", worldPos.getY());
-                nbt.putInt("z", worldPos.getZ());
-            }
-            placements.add(new BlockPlacement(worldPos, state, nbt));
+            placements.add(new BlockPlacement(pos.immutable(), state, nbt != null ? nbt.copy() : null));
         }
+        return placements;
+    }
 
-        placements.sort(Comparator
-                .comparingInt((BlockPlacement placement) -> placement.position().getY())
-                .thenComparingInt(placement -> placement.position().getX())
-                .thenComparingInt(placement -> placement.position().getZ()));
+    /**
+     * Orders placements chunk by chunk, bottom-up inside each chunk and in section storage order (y, z, x) within a layer,
+     * so a tick's batch stays inside one or two sections. Chunks follow serpentine rows, or a Hilbert curve when requested.
+     */
+    static List<BlockPlacement> orderChunkMajor(List<BlockPlacement> placements, boolean hilbert) {
+        int size = placements.size();
+        if (size <= 1) {
+            return placements;
+        }
 
-        BlockRegion region = BlockRegion.fromPlacements(placements, anchorPos);
+        int minChunkX = Integer.MAX_VALUE;
+        int minChunkZ = Integer.MAX_VALUE;
+        int maxChunkX = Integer.MIN_VALUE;
+        int maxChunkZ = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        for (BlockPlacement placement : placements) {
+            BlockPos pos = placement.position();
+            minChunkX = Math.min(minChunkX, pos.getX() >> 4);
+            minChunkZ = Math.min(minChunkZ, pos.getZ() >> 4);
+            maxChunkX = Math.max(maxChunkX, pos.getX() >> 4);
+            maxChunkZ = Math.max(maxChunkZ, pos.getZ() >> 4);
+            minY = Math.min(minY, pos.getY());
+        }
+
+        int chunksX = maxChunkX - minChunkX + 1;
+        int chunksZ = maxChunkZ - minChunkZ + 1;
+        int curveSide = Integer.highestOneBit(Math.max(1, Math.max(chunksX, chunksZ) - 1)) << 1;
 
-        return new BlockPlacementPlan(placements, region);
+        long[] keys = new long[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            BlockPos pos = placements.get(i).position();
+            int chunkX = (pos.getX() >> 4) - minChunkX;
+            int chunkZ = (pos.getZ() >> 4) - minChunkZ;
+            long chunkRank = hilbert
+                    ? hilbertIndex(curveSide, chunkX, chunkZ)
+                    : (long) chunkZ * chunksX + ((chunkZ & 1) == 0 ? chunkX : chunksX - 1 - chunkX);
+            long inChunk = ((long) (pos.getY() - minY) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
+            keys[i] = (chunkRank << 24) | inChunk;
+            order[i] = i;
+        }
+
+        IntArrays.quickSort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        List<BlockPlacement> sorted = new ArrayList<>(size);
+        for (int index : order) {
+            sorted.add(placements.get(index));
+        }
+        return sorted;
+    }
+
+    private static long hilbertIndex(int side, int x, int y) {
+        long index = 0L;
+        for (int s = side >> 1; s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return index;
     }
 
-    private static StructureTemplate resolveTemplate(ServerLevel level, SchematicRef ref) throws BlockPlacementException {
+    private static StructureTemplate resolveTemplate(StructureTemplateManager manager, SchematicRef ref) throws BlockPlacementException {
         ResourceLocation structureId = resolveStructureLocation(ref);
-        StructureTemplateManager manager = level.getServer().getStructureManager();
         Optional<StructureTemplate> template = manager.get(structureId);
         if (template.isPresent()) {
             return template.get();
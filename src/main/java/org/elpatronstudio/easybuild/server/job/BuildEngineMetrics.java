@@ -0,0 +1,124 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import java.util.Arrays;
+
+/**
+ * Always-on counters behind {@link BuildEngineStats}.
+ * <p>
+ * Placement time and written blocks are summed per server tick and kept in a ring of the last minute of ticks;
+ * planning latency keeps the last {@link #PLANNING_WINDOW} jobs. Recording only adds to fields, percentiles are
+ * computed when a snapshot is taken.
+ */
+final class BuildEngineMetrics {
+
+    static final int TICK_WINDOW = 1200;
+    static final int RATE_WINDOW = 100;
+    static final int PLANNING_WINDOW = 128;
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private final long[] placementNanos = new long[TICK_WINDOW];
+    private final int[] placedBlocks = new int[TICK_WINDOW];
+    private final long[] tickEndNanos = new long[TICK_WINDOW];
+    private int tickCursor;
+    private int tickSamples;
+    private long currentNanos;
+    private int currentBlocks;
+
+    private final long[] planningMillis = new long[PLANNING_WINDOW];
+    private int planningCursor;
+    private int planningSamples;
+
+    private long totalBlocks;
+    private long stalledTicks;
+
+    synchronized void recordPlacement(long nanos, int blocks) {
+        currentNanos += Math.max(0L, nanos);
+        currentBlocks += Math.max(0, blocks);
+        totalBlocks += Math.max(0, blocks);
+    }
+
+    synchronized void recordStall() {
+        stalledTicks++;
+    }
+
+    synchronized void recordPlanning(long millis) {
+        planningMillis[planningCursor] = Math.max(0L, millis);
+        planningCursor = (planningCursor + 1) % PLANNING_WINDOW;
+        planningSamples = Math.min(PLANNING_WINDOW, planningSamples + 1);
+    }
+
+    /**
+     * Closes the current server tick; called once after all levels have ticked.
+     */
+    synchronized void endTick() {
+        placementNanos[tickCursor] = currentNanos;
+        placedBlocks[tickCursor] = currentBlocks;
+        tickEndNanos[tickCursor] = System.nanoTime();
+        tickCursor = (tickCursor + 1) % TICK_WINDOW;
+        tickSamples = Math.min(TICK_WINDOW, tickSamples + 1);
+        currentNanos = 0L;
+        currentBlocks = 0;
+    }
+
+    synchronized long totalBlocks() {
+        return totalBlocks;
+    }
+
+    synchronized long stalledTicks() {
+        return stalledTicks;
+    }
+
+    /**
+     * Blocks written per second over the last {@link #RATE_WINDOW} server ticks, measured against wall time.
+     */
+    synchronized double blocksPerSecond() {
+        int samples = Math.min(RATE_WINDOW, tickSamples);
+        if (samples < 2) {
+            return 0.0;
+        }
+        long blocks = 0L;
+        for (int i = 1; i < samples; i++) {
+            blocks += placedBlocks[slot(i)];
+        }
+        long elapsed = tickEndNanos[slot(1)] - tickEndNanos[slot(samples)];
+        return elapsed > 0L ? blocks * 1_000_000_000.0 / elapsed : 0.0;
+    }
+
+    /**
+     * Average and 99th percentile placement milliseconds of ticks in the window that placed anything.
+     */
+    synchronized double[] placementMs() {
+        long[] busy = new long[tickSamples];
+        int count = 0;
+        for (int i = 0; i < tickSamples; i++) {
+            if (placementNanos[i] > 0L) {
+                busy[count++] = placementNanos[i];
+            }
+        }
+        return summarize(busy, count, NANOS_PER_MS);
+    }
+
+    /**
+     * Average and 99th percentile planning latency in milliseconds over the last planned jobs.
+     */
+    synchronized double[] planningMs() {
+        return summarize(Arrays.copyOf(planningMillis, planningSamples), planningSamples, 1.0);
+    }
+
+    private int slot(int ticksAgo) {
+        return Math.floorMod(tickCursor - ticksAgo, TICK_WINDOW);
+    }
+
+    private static double[] summarize(long[] values, int count, double divisor) {
+        if (count == 0) {
+            return new double[]{0.0, 0.0};
+        }
+        Arrays.sort(values, 0, count);
+        long sum = 0L;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        int p99 = Math.max(0, (int) Math.ceil(count * 0.99) - 1);
+        return new double[]{sum / (double) count / divisor, values[p99] / divisor};
+    }
+}
@@ -0,0 +1,30 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the build engine's counters, as reported by {@code /easybuild stats}.
+ * <p>
+ * Throughput covers the last five seconds, placement time the last minute of ticks that placed blocks, and planning
+ * latency (request to accepted plan) the most recent planned jobs.
+ */
+public record BuildEngineStats(
+        int queuedJobs,
+        int activeJobs,
+        double blocksPerSecond,
+        long totalBlocks,
+        double placementMsAvg,
+        double placementMsP99,
+        long stalledTicks,
+        Map<ResourceKey<Level>, Integer> locksPerDimension,
+        double planningMsAvg,
+        double planningMsP99
+) {
+
+    public BuildEngineStats {
+        locksPerDimension = Map.copyOf(locksPerDimension);
+    }
+}
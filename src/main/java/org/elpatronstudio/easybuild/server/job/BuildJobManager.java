@@ -2,11 +2,18 @@ package org.elpatronstudio.easybuild.server.job;
 
 import com.google.gson.JsonObject;
 import com.mojang.logging.LogUtils;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.Registries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.profiling.Profiler;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
 import org.elpatronstudio.easybuild.core.model.JobPhase;
 import org.elpatronstudio.easybuild.core.model.PasteMode;
 import org.elpatronstudio.easybuild.core.model.SchematicRef;
@@ -20,18 +27,25 @@ import org.elpatronstudio.easybuild.core.network.packet.ServerboundAcknowledgeSt
 import org.elpatronstudio.easybuild.core.network.packet.ServerboundCancelBuildRequest;
 import org.elpatronstudio.easybuild.core.network.packet.ServerboundRequestBuild;
 import org.elpatronstudio.easybuild.server.ServerHandshakeService;
+import org.elpatronstudio.easybuild.server.diagnostics.PlacementBatchEvent;
 import org.elpatronstudio.easybuild.server.security.InstaBuildPermissionService;
 import org.elpatronstudio.easybuild.server.security.RequestSecurityManager;
+import org.elpatronstudio.esaybuildauto.Config;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Locale;
 
 /**
@@ -42,15 +56,34 @@ public final class BuildJobManager {
     private static final Logger LOGGER = LogUtils.getLogger();
     private static final BuildJobManager INSTANCE = new BuildJobManager();
     private static final int MAX_STALLED_TICKS = 200;
+    private static final int MAX_SCHEDULING_WEIGHT = 2048;
+    private static final int LOCK_ESTIMATE_INTERVAL_TICKS = 20;
+    private static final ExecutorService PLANNING_POOL = createPlanningPool();
 
     private final Map<String, BuildJobState> jobs = new ConcurrentHashMap<>();
     private final Map<UUID, Set<String>> playerJobs = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedQueue<BuildJobState> jobQueue = new ConcurrentLinkedQueue<>();
-    private ActiveJob currentJob;
+    private final Map<ResourceKey<Level>, LevelScheduler> schedulers = new ConcurrentHashMap<>();
+    private final ThroughputGovernor governor = new ThroughputGovernor();
+    private final BuildEngineMetrics metrics = new BuildEngineMetrics();
+    private final Map<String, JobCheckpointStore.Checkpoint> resumePoints = new ConcurrentHashMap<>();
+    private volatile JobCheckpointStore store;
+    private int budgetTick = -1;
+    private long budgetRemainingNanos;
+    private int budgetLevelsLeft;
 
     private BuildJobManager() {
     }
 
+    private static ExecutorService createPlanningPool() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "EasyBuild-Planner-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     public static BuildJobManager get() {
         return INSTANCE;
     }
@@ -165,35 +198,92 @@ public final class BuildJobManager {
             return;
         }
 
-        BlockPlacementPlan plan;
+        startPlanning(targetLevel, job, player.getGameProfile().name());
+    }
+
+    /**
+     * Queues a job on behalf of the server itself, skipping handshake, rate limit, nonce and permission checks. Meant
+     * for game tests and other trusted server-side callers; the returned state reflects the job until it ends.
+     */
+    public BuildJobState submitTrusted(ServerLevel level, BuildJob job, String ownerName) {
+        return startPlanning(level, job, ownerName);
+    }
+
+    private BuildJobState startPlanning(ServerLevel targetLevel, BuildJob job, String ownerName) {
+        BuildJobState state = new BuildJobState(job, UUID.randomUUID(), ownerName);
+        state.updateProgress(0, 0, JobPhase.QUEUED);
+        jobs.put(job.jobId(), state);
+        playerJobs.computeIfAbsent(job.ownerUuid(), uuid -> ConcurrentHashMap.newKeySet()).add(job.jobId());
+
+        MinecraftServer server = targetLevel.getServer();
+        StructureTemplateManager templates = server.getStructureManager();
+        CompletableFuture
+                .supplyAsync(() -> planOffThread(templates, job), PLANNING_POOL)
+                .whenCompleteAsync((plan, error) -> finishPlanning(targetLevel, state, ownerName, plan, error), server);
+
+        LOGGER.debug("Planning EasyBuild job {} for player {} off-thread", job.jobId(), ownerName);
+        return state;
+    }
+
+    private BlockPlacementPlan planOffThread(StructureTemplateManager templates, BuildJob job) {
         try {
-            plan = BlockPlacementPlanner.plan(targetLevel, job, job.options());
+            return BlockPlacementPlanner.plan(templates, job, job.options());
         } catch (BlockPlacementException ex) {
-            EasyBuildPacketSender.sendTo(player, new ClientboundBuildFailed(
-                    job.jobId(),
-                    job.schematic(),
-                    job.clientRequestId(),
-                    ex.reasonCode(),
-                    ex.getMessage(),
-                    false,
-                    ThreadLocalRandom.current().nextLong(),
-                    System.currentTimeMillis()
-            ));
-            sendChat(player, Component.literal("[EasyBuild] Job abgelehnt: " + ex.getMessage()));
-            LOGGER.debug("Rejected job {} due to planning error: {}", job.jobId(), ex.getMessage());
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Runs on the server thread once planning finished: acquires the region lock and accepts or rejects the job. The
+     * work shows up as the {@code easybuild_plan} profiler section; planning itself runs on the pool and is only
+     * recorded as a {@code Planning} JFR event.
+     */
+    private void finishPlanning(ServerLevel level, BuildJobState state, String ownerName, BlockPlacementPlan plan, Throwable error) {
+        ProfilerFiller profiler = Profiler.get();
+        profiler.push("easybuild_plan");
+        try {
+            acceptPlan(level, state, ownerName, plan, error);
+        } finally {
+            profiler.pop();
+        }
+    }
+
+    private void acceptPlan(ServerLevel level, BuildJobState state, String ownerName, BlockPlacementPlan plan, Throwable error) {
+        BuildJob job = state.job();
+        if (jobs.get(job.jobId()) != state) {
+            LOGGER.debug("Discarding plan for job {} – job was removed while planning", job.jobId());
             return;
-        } catch (Exception ex) {
-            EasyBuildPacketSender.sendTo(player, new ClientboundBuildFailed(
-                    job.jobId(),
-                    job.schematic(),
-                    job.clientRequestId(),
-                    "PLAN_FAILURE",
-                    ex.getMessage(),
-                    false,
-                    ThreadLocalRandom.current().nextLong(),
-                    System.currentTimeMillis()
-            ));
-            LOGGER.warn("Failed to prepare job {}", job.jobId(), ex);
+        }
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            removeJob(state, JobPhase.CANCELLED);
+            if (cause instanceof BlockPlacementException ex) {
+                EasyBuildPacketSender.sendTo(level, job.ownerUuid(), new ClientboundBuildFailed(
+                        job.jobId(),
+                        job.schematic(),
+                        job.clientRequestId(),
+                        ex.reasonCode(),
+                        ex.getMessage(),
+                        false,
+                        ThreadLocalRandom.current().nextLong(),
+                        System.currentTimeMillis()
+                ));
+                sendChatToOwner(level, state, Component.literal("[EasyBuild] Job abgelehnt: " + ex.getMessage()));
+                LOGGER.debug("Rejected job {} due to planning error: {}", job.jobId(), ex.getMessage());
+            } else {
+                EasyBuildPacketSender.sendTo(level, job.ownerUuid(), new ClientboundBuildFailed(
+                        job.jobId(),
+                        job.schematic(),
+                        job.clientRequestId(),
+                        "PLAN_FAILURE",
+                        cause.getMessage(),
+                        false,
+                        ThreadLocalRandom.current().nextLong(),
+                        System.currentTimeMillis()
+                ));
+                LOGGER.warn("Failed to prepare job {}", job.jobId(), cause);
+            }
             return;
         }
 
@@ -202,18 +292,20 @@ public final class BuildJobManager {
         RegionLockManager.LockResult lockResult = RegionLockManager.get().tryAcquire(
                 dimensionKey,
                 plan.region(),
-                player.getUUID(),
-                player.getGameProfile().name(),
+                plan.footprint(),
+                job.ownerUuid(),
+                ownerName,
                 job.jobId(),
                 estimatedTicks
         );
 
         if (!lockResult.success()) {
+            removeJob(state, JobPhase.CANCELLED);
             RegionLockManager.RegionLock conflict = lockResult.conflict();
             String lockDetails = "Region wird aktuell von einem anderen Job genutzt.";
             if (conflict != null) {
                 long etaTicks = estimateRemainingTicks(conflict);
-                EasyBuildPacketSender.sendTo(player, new ClientboundRegionLocked(
+                EasyBuildPacketSender.sendTo(level, job.ownerUuid(), new ClientboundRegionLocked(
                         job.schematic(),
                         conflict.jobId(),
                         conflict.ownerUuid(),
@@ -222,13 +314,13 @@ public final class BuildJobManager {
                         ThreadLocalRandom.current().nextLong(),
                         System.currentTimeMillis()
                 ));
-                sendChat(player, Component.literal("[EasyBuild] Region durch Job " + conflict.jobId() + " gesperrt (" + conflict.ownerName() + ")."));
+                sendChatToOwner(level, state, Component.literal("[EasyBuild] Region durch Job " + conflict.jobId() + " gesperrt (" + conflict.ownerName() + ")."));
                 lockDetails = "Region ist durch Job " + conflict.jobId() + " gesperrt.";
             }
-            EasyBuildPacketSender.sendTo(player, new ClientboundBuildFailed(
+            EasyBuildPacketSender.sendTo(level, job.ownerUuid(), new ClientboundBuildFailed(
                     job.jobId(),
-                job.schematic(),
-                job.clientRequestId(),
+                    job.schematic(),
+                    job.clientRequestId(),
                     "REGION_LOCKED",
                     lockDetails,
                     false,
@@ -239,19 +331,17 @@ public final class BuildJobManager {
             return;
         }
 
-        RegionLockManager.RegionLock regionLock = lockResult.acquired();
-
-        BuildJobState state = new BuildJobState(job, UUID.randomUUID());
+        metrics.recordPlanning(System.currentTimeMillis() - state.queuedAt());
         state.attachPlan(plan);
         state.updateProgress(0, plan.totalBlocks(), JobPhase.QUEUED);
-        state.attachRegionLock(regionLock);
-
-        jobs.put(jobId, state);
-        playerJobs.computeIfAbsent(player.getUUID(), uuid -> ConcurrentHashMap.newKeySet()).add(jobId);
-        jobQueue.add(state);
+        state.attachRegionLock(lockResult.acquired());
+        schedulerFor(dimensionKey).queue.add(state);
+        JobCheckpointStore checkpoints = store;
+        if (checkpoints != null) {
+            checkpoints.saveJob(state, ownerName, plan);
+        }
 
-        long now = System.currentTimeMillis();
-        EasyBuildPacketSender.sendTo(player, new ClientboundBuildAccepted(
+        EasyBuildPacketSender.sendTo(level, job.ownerUuid(), new ClientboundBuildAccepted(
                 job.jobId(),
                 job.schematic(),
                 job.mode(),
@@ -259,12 +349,12 @@ public final class BuildJobManager {
                 estimatedTicks,
                 state.reservationToken(),
                 ThreadLocalRandom.current().nextLong(),
-                now
+                System.currentTimeMillis()
         ));
 
-        sendChat(player, Component.literal("[EasyBuild] Build-Job " + job.jobId() + " aufgenommen – " + plan.totalBlocks() + " Blöcke."));
+        sendChatToOwner(level, state, Component.literal("[EasyBuild] Build-Job " + job.jobId() + " aufgenommen – " + plan.totalBlocks() + " Blöcke."));
 
-        LOGGER.debug("Queued EasyBuild job {} for player {} ({} blocks)", job.jobId(), player.getGameProfile().name(), plan.totalBlocks());
+        LOGGER.debug("Queued EasyBuild job {} for player {} ({} blocks, planned in {} ms)", job.jobId(), ownerName, plan.totalBlocks(), System.currentTimeMillis() - state.queuedAt());
     }
 
     public void cancelJob(ServerPlayer player, ServerboundCancelBuildRequest message) {
@@ -335,6 +425,17 @@ public final class BuildJobManager {
             return;
         }
 
+        ActiveJob running = findActive(state);
+        if (running != null && running.rollbackOf != null) {
+            sendChat(player, Component.literal("[EasyBuild] Job " + jobId + " wird bereits zurückgesetzt."));
+            return;
+        }
+
+        if (Config.serverJobsRollbackOnCancel && startRollback(state, "CANCELLED", "Job wurde abgebrochen.")) {
+            sendChat(player, Component.literal("[EasyBuild] Job " + jobId + " wird abgebrochen, Änderungen werden zurückgesetzt."));
+            return;
+        }
+
         EasyBuildPacketSender.sendTo(player, new ClientboundBuildFailed(
                 jobId,
                 state.job().schematic(),
@@ -384,13 +485,9 @@ public final class BuildJobManager {
         }
 
         UUID uuid = player.getUUID();
-        Set<String> jobIds = playerJobs.remove(uuid);
-        if (jobIds != null) {
-            jobIds.stream()
-                    .map(jobs::remove)
-                    .filter(state -> state != null)
-                    .forEach(state -> removeJob(state, JobPhase.CANCELLED));
-            LOGGER.debug("Cleared {} jobs for disconnecting player {}", jobIds.size(), player.getGameProfile().name());
+        Set<String> jobIds = playerJobs.get(uuid);
+        if (jobIds != null && !jobIds.isEmpty()) {
+            LOGGER.debug("Keeping {} jobs running for disconnecting player {}", jobIds.size(), player.getGameProfile().name());
         }
         ServerHandshakeService.removeSession(uuid);
         RequestSecurityManager.get().clear(uuid);
@@ -402,9 +499,24 @@ public final class BuildJobManager {
 
     private void removeJob(BuildJobState state, JobPhase finalPhase) {
         jobs.remove(state.job().jobId());
-        jobQueue.remove(state);
-        if (currentJob != null && currentJob.state == state) {
-            currentJob = null;
+        resumePoints.remove(state.job().jobId());
+        JobCheckpointStore checkpoints = store;
+        if (checkpoints != null) {
+            checkpoints.delete(state.job().jobId());
+        }
+        LevelScheduler scheduler = schedulers.get(BlockPlacementPlanner.resolveDimensionKey(state.job().anchor()));
+        if (scheduler != null) {
+            scheduler.queue.remove(state);
+            scheduler.activeJobs.removeIf(active -> {
+                if (active.state != state) {
+                    return false;
+                }
+                active.executor.close();
+                if (active.journal != null) {
+                    active.journal.discard();
+                }
+                return true;
+            });
         }
         RegionLockManager.get().release(state.regionLock());
         state.attachRegionLock(null);
@@ -427,6 +539,20 @@ public final class BuildJobManager {
         return Math.max(1L, (long) Math.ceil((double) total / perTick));
     }
 
+    /**
+     * Re-estimates the lock duration from the diffed remaining work so conflicting players see a realistic ETA.
+     */
+    private void refreshLockEstimate(BuildJobState state, int placed, int total) {
+        RegionLockManager.RegionLock lock = state.regionLock();
+        if (lock == null) {
+            return;
+        }
+        int perTick = resolveBlocksPerTick(state.job());
+        long remainingTicks = perTick == Integer.MAX_VALUE ? 1L : Math.max(1L, (long) Math.ceil((double) Math.max(0, total - placed) / perTick));
+        long elapsedTicks = Math.max(0L, (System.currentTimeMillis() - lock.lockedAt()) / 50L);
+        state.attachRegionLock(RegionLockManager.get().updateEstimate(lock, elapsedTicks + remainingTicks));
+    }
+
     private void sendChat(ServerPlayer player, Component component) {
         player.sendSystemMessage(component);
     }
@@ -461,6 +587,19 @@ public final class BuildJobManager {
         return Math.max(1, Math.min(2048, base));
     }
 
+    private boolean resolveDeferUpdates(BuildJob job) {
+        JsonObject options = job.options();
+        if (options == null || !options.has("deferUpdates")) {
+            return false;
+        }
+        try {
+            return options.get("deferUpdates").getAsBoolean();
+        } catch (Exception ignored) {
+            // Ignore malformed configuration; keep immediate updates.
+            return false;
+        }
+    }
+
     private ServerLevel resolveTargetLevel(ServerPlayer player, BuildJob job) {
         if (player == null) {
             return null;
@@ -469,109 +608,370 @@ public final class BuildJobManager {
         return ((ServerLevel) player.level()).getServer().getLevel(dimensionKey);
     }
 
-    private ServerLevel resolveTargetLevel(ServerLevel reference, BuildJob job) {
-        if (reference == null || reference.getServer() == null) {
-            return null;
+    private LevelScheduler schedulerFor(ResourceKey<Level> dimension) {
+        return schedulers.computeIfAbsent(dimension, key -> new LevelScheduler());
+    }
+
+    /**
+     * Opens the job store of the starting server and re-queues persisted jobs from their last checkpoint. Stored jobs
+     * are read on the storage thread and handed back to the server thread.
+     */
+    public void onServerStarted(MinecraftServer server) {
+        JobCheckpointStore checkpoints = new JobCheckpointStore(server);
+        store = checkpoints;
+        HolderLookup<Block> blockLookup = server.registryAccess().lookupOrThrow(Registries.BLOCK);
+        CompletableFuture
+                .supplyAsync(() -> checkpoints.loadAll(blockLookup), JobCheckpointStore.IO)
+                .whenCompleteAsync((stored, error) -> {
+                    if (store != checkpoints) {
+                        return;
+                    }
+                    if (error != null) {
+                        LOGGER.error("Failed to load persisted EasyBuild jobs", error);
+                        return;
+                    }
+                    int resumed = 0;
+                    for (JobCheckpointStore.StoredJob job : stored) {
+                        if (restoreJob(server, checkpoints, job)) {
+                            resumed++;
+                        }
+                    }
+                    if (resumed > 0) {
+                        LOGGER.info("Resuming {} persisted EasyBuild jobs", resumed);
+                    }
+                }, server);
+    }
+
+    /**
+     * Checkpoints all running jobs, waits for pending writes and resets in-memory state for the next server session.
+     */
+    public void onServerStopping(MinecraftServer server) {
+        for (LevelScheduler scheduler : schedulers.values()) {
+            for (ActiveJob active : scheduler.activeJobs) {
+                checkpoint(active);
+                active.executor.close();
+            }
         }
+        JobCheckpointStore checkpoints = store;
+        store = null;
+        if (checkpoints != null) {
+            checkpoints.flush();
+        }
+        jobs.clear();
+        playerJobs.clear();
+        schedulers.clear();
+        resumePoints.clear();
+        budgetTick = -1;
+        RegionLockManager.get().clear();
+    }
+
+    private boolean restoreJob(MinecraftServer server, JobCheckpointStore checkpoints, JobCheckpointStore.StoredJob stored) {
+        BuildJobState state = stored.state();
+        BuildJob job = state.job();
+        BlockPlacementPlan plan = stored.plan();
         ResourceKey<Level> dimensionKey = BlockPlacementPlanner.resolveDimensionKey(job.anchor());
-        return reference.getServer().getLevel(dimensionKey);
+        if (server.getLevel(dimensionKey) == null) {
+            LOGGER.warn("Dropping persisted job {}: dimension {} is not loaded", job.jobId(), dimensionKey.location());
+            checkpoints.delete(job.jobId());
+            return false;
+        }
+
+        RegionLockManager.LockResult lockResult = RegionLockManager.get().tryAcquire(
+                dimensionKey,
+                plan.region(),
+                plan.footprint(),
+                job.ownerUuid(),
+                stored.ownerName(),
+                job.jobId(),
+                estimateDurationTicks(job, plan)
+        );
+        if (!lockResult.success()) {
+            LOGGER.warn("Dropping persisted job {}: region overlaps job {}", job.jobId(), lockResult.conflict() != null ? lockResult.conflict().jobId() : "?");
+            checkpoints.delete(job.jobId());
+            return false;
+        }
+
+        JobCheckpointStore.Checkpoint checkpoint = stored.checkpoint();
+        state.attachPlan(plan);
+        state.attachRegionLock(lockResult.acquired());
+        state.updateProgress(checkpoint.placed(), plan.totalBlocks() - checkpoint.unchanged(), JobPhase.QUEUED);
+        jobs.put(job.jobId(), state);
+        playerJobs.computeIfAbsent(job.ownerUuid(), uuid -> ConcurrentHashMap.newKeySet()).add(job.jobId());
+        resumePoints.put(job.jobId(), checkpoint);
+        schedulerFor(dimensionKey).queue.add(state);
+        return true;
+    }
+
+    /**
+     * Feeds the throughput governor once per server tick, after all levels have ticked.
+     */
+    public void onServerTick(MinecraftServer server) {
+        governor.update(server);
+        metrics.endTick();
     }
 
+    /**
+     * Snapshot of queue sizes, throughput, placement and planning times, stalls and held locks. Counters are always
+     * collected; call from the server thread for consistent job counts.
+     */
+    public BuildEngineStats stats() {
+        int queued = 0;
+        int active = 0;
+        for (LevelScheduler scheduler : schedulers.values()) {
+            queued += scheduler.queue.size();
+            active += scheduler.activeJobs.size();
+        }
+        double[] placement = metrics.placementMs();
+        double[] planning = metrics.planningMs();
+        return new BuildEngineStats(
+                queued,
+                active,
+                metrics.blocksPerSecond(),
+                metrics.totalBlocks(),
+                placement[0],
+                placement[1],
+                metrics.stalledTicks(),
+                RegionLockManager.get().lockCounts(),
+                planning[0],
+                planning[1]
+        );
+    }
+
+    /**
+     * Advances the queue and running jobs of {@code level} only; every dimension is driven by its own level tick.
+     * While the throughput governor holds jobs paused, running jobs are switched to {@link JobPhase#PAUSED} and no
+     * queued job is started. The work shows up as the {@code easybuild} profiler section of the level tick.
+     */
     public void tickServer(ServerLevel level) {
-        if (!level.dimension().equals(Level.OVERWORLD)) {
+        LevelScheduler scheduler = schedulers.get(level.dimension());
+        if (scheduler == null) {
             return;
         }
 
-        if (currentJob == null) {
-            BuildJobState nextState;
-            while ((nextState = jobQueue.poll()) != null) {
-                ServerLevel targetLevel = resolveTargetLevel(level, nextState.job());
-                if (targetLevel == null) {
-                    failJob(level, nextState, "DIMENSION_UNAVAILABLE", "Ziel-Dimension nicht geladen.", false);
-                    continue;
-                }
+        ProfilerFiller profiler = Profiler.get();
+        profiler.push("easybuild");
+        try {
+            tickScheduler(level, scheduler, profiler);
+        } finally {
+            profiler.pop();
+        }
+    }
 
-                BlockPlacementPlan plan = nextState.plan();
-                if (plan == null) {
-                    try {
-                        plan = BlockPlacementPlanner.plan(targetLevel, nextState.job(), nextState.job().options());
-                        nextState.attachPlan(plan);
-                        nextState.updateProgress(nextState.placed(), plan.totalBlocks(), JobPhase.QUEUED);
-                    } catch (BlockPlacementException ex) {
-                        failJob(targetLevel, nextState, ex.reasonCode(), ex.getMessage(), false);
-                        continue;
-                    } catch (Exception ex) {
-                        failJob(targetLevel, nextState, "PLAN_FAILURE", ex.getMessage(), false);
-                        continue;
-                    }
+    private void tickScheduler(ServerLevel level, LevelScheduler scheduler, ProfilerFiller profiler) {
+        if (governor.paused()) {
+            pauseActiveJobs(scheduler);
+            return;
+        }
+
+        profiler.push("start_jobs");
+        startQueuedJobs(level, scheduler);
+        profiler.pop();
+        List<ActiveJob> activeJobs = scheduler.activeJobs;
+        if (activeJobs.isEmpty()) {
+            return;
+        }
+
+        JobSchedulingPolicy policy = Config.serverJobsSchedulingPolicy;
+        long budgetStart = System.nanoTime();
+        long budgetEnd = budgetStart + takeLevelBudget(level.getServer().getTickCount());
+        List<ActiveJob> order = rotatedActiveJobs(scheduler);
+        long remainingWeight = 0L;
+        for (ActiveJob active : order) {
+            remainingWeight += active.weight;
+        }
+        int remainingJobs = order.size();
+
+        profiler.push("place");
+        for (ActiveJob active : order) {
+            long now = System.nanoTime();
+            long remainingNanos = Math.max(0L, budgetEnd - now);
+            long slice = policy == JobSchedulingPolicy.WEIGHTED && remainingWeight > 0L
+                    ? remainingNanos * active.weight / remainingWeight
+                    : remainingNanos / Math.max(1, remainingJobs);
+            runActiveJob(scheduler, active, now + slice);
+            remainingWeight -= active.weight;
+            remainingJobs--;
+        }
+        profiler.pop();
+        budgetRemainingNanos = Math.max(0L, budgetRemainingNanos - (System.nanoTime() - budgetStart));
+        scheduler.rotation++;
+    }
+
+    /**
+     * Share of the server tick's budget for the next level with running jobs. The governor's budget is computed once
+     * per server tick and split evenly across the levels that had running jobs when the tick's first level asked; time a
+     * level leaves unused carries over to the levels ticking after it.
+     */
+    private long takeLevelBudget(int tickCount) {
+        if (tickCount != budgetTick) {
+            budgetTick = tickCount;
+            budgetRemainingNanos = governor.budgetNanos(Config.serverJobsTickBudgetMs);
+            budgetLevelsLeft = 0;
+            for (LevelScheduler scheduler : schedulers.values()) {
+                if (!scheduler.activeJobs.isEmpty()) {
+                    budgetLevelsLeft++;
                 }
+            }
+        }
+        long share = budgetRemainingNanos / Math.max(1, budgetLevelsLeft);
+        budgetLevelsLeft = Math.max(0, budgetLevelsLeft - 1);
+        return share;
+    }
+
+    private void startQueuedJobs(ServerLevel targetLevel, LevelScheduler scheduler) {
+        int maxConcurrent = Math.max(1, Config.serverJobsMaxConcurrent);
+        List<ActiveJob> activeJobs = scheduler.activeJobs;
+        BuildJobState nextState;
+        while (activeJobs.size() < maxConcurrent && (nextState = scheduler.queue.poll()) != null) {
+            BlockPlacementPlan plan = nextState.plan();
+            if (plan == null) {
+                // Jobs are only queued once planning attached their plan; never plan on the server thread
+                LOGGER.error("Job {} was queued without a plan", nextState.job().jobId());
+                failJob(targetLevel, nextState, "PLAN_FAILURE", "Job wurde ohne Plan eingereiht.", false);
+                continue;
+            }
 
-                BlockPlacementExecutor executor = new BlockPlacementExecutor(
-                        targetLevel,
-                        plan,
-                        nextState.job().mode(),
-                        resolveBlocksPerTick(nextState.job())
-                );
-                nextState.setPhase(JobPhase.PLACING);
-                publishProgress(nextState, executor.placedBlocks(), executor.totalBlocks(), JobPhase.PLACING);
-                currentJob = new ActiveJob(nextState, targetLevel, executor);
-                sendChatToOwner(targetLevel, nextState, Component.literal("[EasyBuild] Starte Platzierung (" + nextState.job().mode() + ")"));
-                break;
+            UndoJournal journal = Config.serverJobsRollbackOnFailure || Config.serverJobsRollbackOnCancel
+                    ? new UndoJournal(targetLevel, nextState.job().jobId())
+                    : null;
+            JobCheckpointStore.Checkpoint resume = resumePoints.remove(nextState.job().jobId());
+            if (resume != null && journal != null) {
+                journal.resume(resume.journalEntries());
             }
+            if (resume != null && resume.rollingBack()) {
+                resumeRollback(targetLevel, scheduler, nextState, journal, resume);
+                continue;
+            }
+            BlockPlacementExecutor executor = new BlockPlacementExecutor(
+                    targetLevel,
+                    plan,
+                    nextState.job().mode(),
+                    resolveBlocksPerTick(nextState.job()),
+                    resolveDeferUpdates(nextState.job()),
+                    nextState.reservationToken(),
+                    Config.serverJobsPreloadChunks,
+                    journal
+            );
+            if (resume != null) {
+                executor.resumeAt(resume.settled(), resume.cursor(), resume.placed(), resume.unchanged());
+            }
+            nextState.markStarted(System.currentTimeMillis());
+            nextState.setPhase(JobPhase.PLACING);
+            publishProgress(nextState, executor.placedBlocks(), executor.totalBlocks(), JobPhase.PLACING);
+            activeJobs.add(new ActiveJob(nextState, targetLevel, executor, journal, null));
+            String verb = resume != null ? "Setze Platzierung fort" : "Starte Platzierung";
+            sendChatToOwner(targetLevel, nextState, Component.literal("[EasyBuild] " + verb + " (" + nextState.job().mode() + ")"));
+            LOGGER.debug("Started job {} in {} after {} ms in queue ({} active)", nextState.job().jobId(), targetLevel.dimension().location(), nextState.queueWaitMs(), activeJobs.size());
         }
+    }
 
-        if (currentJob != null) {
-            ActiveJob active = currentJob;
-            try {
-                boolean finished = active.executor.tick();
-                int placed = active.executor.placedBlocks();
-                int total = active.executor.totalBlocks();
-                JobPhase phase = finished ? JobPhase.COMPLETED : JobPhase.PLACING;
-                publishProgress(active.state, placed, total, phase);
-                  EasyBuildPacketSender.sendTo(active.level, active.state.job().ownerUuid(), new ClientboundProgressUpdate(
-                          active.state.job().jobId(),
-                          active.state.job().schematic(),
-                          placed,
-                          total,
-                          phase,
-                          progressMessage(placed, total, finished),
-                          ThreadLocalRandom.current().nextLong(),
-                          System.currentTimeMillis()
-                  ));
-                if (!finished) {
-                    if (placed > active.lastPlaced) {
-                        active.lastPlaced = placed;
-                        active.stalledTicks = 0;
-                    } else {
-                        active.stalledTicks++;
-                        if (active.stalledTicks > MAX_STALLED_TICKS) {
-                            LOGGER.warn("Job {} timed out after {} stalled ticks", active.state.job().jobId(), active.stalledTicks);
-                            failJob(active.level, active.state, "TIMEOUT", "Keine Fortschritts-Updates innerhalb des Zeitlimits.", false);
-                            currentJob = null;
-                            return;
-                        }
-                    }
+    private void pauseActiveJobs(LevelScheduler scheduler) {
+        for (ActiveJob active : scheduler.activeJobs) {
+            BuildJobState state = active.state;
+            if (state.phase() == JobPhase.PAUSED) {
+                continue;
+            }
+            int placed = active.executor.placedBlocks();
+            int total = active.executor.totalBlocks();
+            publishProgress(state, placed, total, JobPhase.PAUSED);
+            sendProgress(active, placed, total, JobPhase.PAUSED);
+        }
+    }
+
+    private void resumeRollback(ServerLevel level, LevelScheduler scheduler, BuildJobState state, UndoJournal journal, JobCheckpointStore.Checkpoint resume) {
+        if (journal == null || journal.isEmpty()) {
+            removeJob(state, JobPhase.CANCELLED);
+            sendFailure(level, state, resume.rollbackReason(), resume.rollbackDetails(), false);
+            return;
+        }
+        RollbackExecutor rollback = new RollbackExecutor(level, journal, Math.min(MAX_SCHEDULING_WEIGHT, resolveBlocksPerTick(state.job())),
+                resume.placed(), state.reservationToken(), Config.serverJobsPreloadChunks);
+        state.markStarted(System.currentTimeMillis());
+        publishProgress(state, 0, rollback.totalBlocks(), JobPhase.ROLLING_BACK);
+        scheduler.activeJobs.add(new ActiveJob(state, level, rollback, journal, new FailureReport(resume.rollbackReason(), resume.rollbackDetails())));
+        LOGGER.info("Resuming rollback of job {} ({} journaled blocks left)", state.job().jobId(), rollback.totalBlocks());
+    }
+
+    private List<ActiveJob> rotatedActiveJobs(LevelScheduler scheduler) {
+        List<ActiveJob> activeJobs = scheduler.activeJobs;
+        int size = activeJobs.size();
+        List<ActiveJob> order = new ArrayList<>(size);
+        int offset = Math.floorMod(scheduler.rotation, size);
+        for (int i = 0; i < size; i++) {
+            order.add(activeJobs.get((offset + i) % size));
+        }
+        return order;
+    }
+
+    private void runActiveJob(LevelScheduler scheduler, ActiveJob active, long deadlineNanos) {
+        if (!scheduler.activeJobs.contains(active)) {
+            return;
+        }
+        try {
+            int placedBefore = active.executor.placedBlocks();
+            PlacementBatchEvent event = new PlacementBatchEvent();
+            event.begin();
+            long tickStart = System.nanoTime();
+            boolean finished = active.executor.tick(deadlineNanos, governor.blockLimit(active.executor.blocksPerTick()));
+            long elapsed = System.nanoTime() - tickStart;
+            active.state.recordPlacementTick(elapsed, deadlineNanos - tickStart);
+            governor.recordPlacement(elapsed);
+            int placed = active.executor.placedBlocks();
+            metrics.recordPlacement(elapsed, placed - placedBefore);
+            if (event.shouldCommit()) {
+                event.jobId = active.state.job().jobId();
+                event.dimension = active.level.dimension().location().toString();
+                event.rollback = active.rollbackOf != null;
+                event.written = placed - placedBefore;
+                event.placed = placed;
+                event.total = active.executor.totalBlocks();
+                event.finished = finished;
+                event.commit();
+            }
+            int total = active.executor.totalBlocks();
+            boolean rollingBack = active.rollbackOf != null;
+            JobPhase phase = rollingBack ? JobPhase.ROLLING_BACK : finished ? JobPhase.COMPLETED : JobPhase.PLACING;
+            publishProgress(active.state, placed, total, phase);
+            sendProgress(active, placed, total, phase);
+            if (!finished) {
+                long progress = active.executor.progressCounter();
+                if (progress > active.lastProgress) {
+                    active.lastProgress = progress;
+                    active.stalledTicks = 0;
                 } else {
-                    active.lastPlaced = placed;
+                    active.stalledTicks++;
+                    metrics.recordStall();
+                    if (active.stalledTicks > MAX_STALLED_TICKS) {
+                        LOGGER.warn("Job {} timed out after {} stalled ticks", active.state.job().jobId(), active.stalledTicks);
+                        failJob(active.level, active.state, "TIMEOUT", "Keine Fortschritts-Updates innerhalb des Zeitlimits.", Config.serverJobsRollbackOnFailure);
+                        return;
+                    }
                 }
-
-                if (finished) {
-                    completeJob(active.level, active.state, active.executor);
-                    currentJob = null;
+                if (++active.ticksRun % LOCK_ESTIMATE_INTERVAL_TICKS == 0) {
+                    refreshLockEstimate(active.state, placed, total);
                 }
-            } catch (BlockPlacementException ex) {
-                LOGGER.warn("Job {} failed during placement: {}", active.state.job().jobId(), ex.getMessage());
-                failJob(active.level, active.state, ex.reasonCode(), ex.getMessage(), false);
-                currentJob = null;
-            } catch (Exception ex) {
-                LOGGER.error("Unexpected error while running job {}", active.state.job().jobId(), ex);
-                failJob(active.level, active.state, "UNEXPECTED_ERROR", ex.getMessage(), false);
-                currentJob = null;
+                if (active.ticksRun % Math.max(1, Config.serverJobsCheckpointIntervalTicks) == 0) {
+                    checkpoint(active);
+                }
+            } else {
+                active.lastProgress = active.executor.progressCounter();
             }
+
+            if (finished && rollingBack) {
+                finishRollback(active);
+            } else if (finished) {
+                completeJob(active.level, active.state, active.executor);
+            }
+        } catch (BlockPlacementException ex) {
+            LOGGER.warn("Job {} failed during placement: {}", active.state.job().jobId(), ex.getMessage());
+            failJob(active.level, active.state, ex.reasonCode(), ex.getMessage(), Config.serverJobsRollbackOnFailure);
+        } catch (Exception ex) {
+            LOGGER.error("Unexpected error while running job {}", active.state.job().jobId(), ex);
+            failJob(active.level, active.state, "UNEXPECTED_ERROR", ex.getMessage(), Config.serverJobsRollbackOnFailure);
         }
     }
 
-    private void completeJob(ServerLevel level, BuildJobState state, BlockPlacementExecutor executor) {
+    private void completeJob(ServerLevel level, BuildJobState state, JobExecutor executor) {
         removeJob(state, JobPhase.COMPLETED);
         publishProgress(state, executor.totalBlocks(), executor.totalBlocks(), JobPhase.COMPLETED);
         EasyBuildPacketSender.sendTo(level, state.job().ownerUuid(), new ClientboundBuildCompleted(
@@ -586,8 +986,83 @@ public final class BuildJobManager {
         sendChatToOwner(level, state, Component.literal("[EasyBuild] Job " + state.job().jobId() + " abgeschlossen."));
     }
 
-    private void failJob(ServerLevel level, BuildJobState state, String reasonCode, String details, boolean rolledBack) {
-        removeJob(state, rolledBack ? JobPhase.ROLLING_BACK : JobPhase.CANCELLED);
+    /**
+     * Fails a job. With {@code rollback} set and a non-empty undo journal, the job keeps its lock and slot while its
+     * changes are restored; the failure is reported once the rollback has finished.
+     */
+    private void failJob(ServerLevel level, BuildJobState state, String reasonCode, String details, boolean rollback) {
+        if (rollback && startRollback(state, reasonCode, details)) {
+            return;
+        }
+        removeJob(state, JobPhase.CANCELLED);
+        sendFailure(level, state, reasonCode, details, false);
+    }
+
+    private boolean startRollback(BuildJobState state, String reasonCode, String details) {
+        LevelScheduler scheduler = schedulers.get(BlockPlacementPlanner.resolveDimensionKey(state.job().anchor()));
+        ActiveJob current = findActive(state);
+        if (scheduler == null || current == null || current.rollbackOf != null || current.journal == null || current.journal.isEmpty()) {
+            return false;
+        }
+
+        current.executor.close();
+        int perTick = Math.min(MAX_SCHEDULING_WEIGHT, current.executor.blocksPerTick());
+        RollbackExecutor rollback = new RollbackExecutor(current.level, current.journal, perTick, 0L,
+                state.reservationToken(), Config.serverJobsPreloadChunks);
+        ActiveJob replacement = new ActiveJob(state, current.level, rollback, current.journal, new FailureReport(reasonCode, details));
+        scheduler.activeJobs.set(scheduler.activeJobs.indexOf(current), replacement);
+        checkpoint(replacement);
+
+        publishProgress(state, 0, rollback.totalBlocks(), JobPhase.ROLLING_BACK);
+        sendProgress(replacement, 0, rollback.totalBlocks(), JobPhase.ROLLING_BACK);
+        LOGGER.info("Rolling back {} blocks of job {} ({})", rollback.totalBlocks(), state.job().jobId(), reasonCode);
+        return true;
+    }
+
+    /**
+     * Writes the resume point of a running job; the undo journal is flushed first so it matches the checkpoint.
+     */
+    private void checkpoint(ActiveJob active) {
+        JobCheckpointStore checkpoints = store;
+        if (checkpoints == null) {
+            return;
+        }
+        long journalEntries = 0L;
+        if (active.journal != null) {
+            active.journal.flush();
+            journalEntries = active.journal.recorded();
+        }
+        JobCheckpointStore.Checkpoint checkpoint;
+        if (active.rollbackOf != null && active.executor instanceof RollbackExecutor rollback) {
+            int restored = (int) Math.min(Integer.MAX_VALUE, rollback.droppedEntries());
+            checkpoint = new JobCheckpointStore.Checkpoint(0, 0, restored, 0, journalEntries, active.rollbackOf.reasonCode(), active.rollbackOf.details());
+        } else if (active.executor instanceof BlockPlacementExecutor placement) {
+            checkpoint = new JobCheckpointStore.Checkpoint(placement.cursor(), placement.settledCursor(), placement.placedBlocks(), placement.unchangedBlocks(), journalEntries, "", "");
+        } else {
+            return;
+        }
+        checkpoints.saveCheckpoint(active.state.job().jobId(), checkpoint);
+    }
+
+    private void finishRollback(ActiveJob active) {
+        removeJob(active.state, JobPhase.CANCELLED);
+        sendFailure(active.level, active.state, active.rollbackOf.reasonCode(), active.rollbackOf.details(), true);
+    }
+
+    private ActiveJob findActive(BuildJobState state) {
+        LevelScheduler scheduler = schedulers.get(BlockPlacementPlanner.resolveDimensionKey(state.job().anchor()));
+        if (scheduler == null) {
+            return null;
+        }
+        for (ActiveJob active : scheduler.activeJobs) {
+            if (active.state == state) {
+                return active;
+            }
+        }
+        return null;
+    }
+
+    private void sendFailure(ServerLevel level, BuildJobState state, String reasonCode, String details, boolean rolledBack) {
         String safeDetails = (details == null || details.isBlank()) ? "Unbekannter Fehler" : details;
         EasyBuildPacketSender.sendTo(level, state.job().ownerUuid(), new ClientboundBuildFailed(
                 state.job().jobId(),
@@ -599,7 +1074,8 @@ public final class BuildJobManager {
                 ThreadLocalRandom.current().nextLong(),
                 System.currentTimeMillis()
         ));
-        sendChatToOwner(level, state, Component.literal("[EasyBuild] Job " + state.job().jobId() + " fehlgeschlagen: " + safeDetails));
+        String suffix = rolledBack ? " (Änderungen zurückgesetzt)" : "";
+        sendChatToOwner(level, state, Component.literal("[EasyBuild] Job " + state.job().jobId() + " fehlgeschlagen: " + safeDetails + suffix));
     }
 
     private long estimateRemainingTicks(RegionLockManager.RegionLock lock) {
@@ -620,6 +1096,49 @@ public final class BuildJobManager {
                 .ifPresent(player -> sendChat(player, message));
     }
 
+    /**
+     * Sends a progress update to the job owner. Phase changes go out immediately; within a phase updates are coalesced
+     * to one per {@code server.jobs.progressIntervalTicks}, or earlier when progress crosses a
+     * {@code server.jobs.progressPercentStep} bucket.
+     */
+    private void sendProgress(ActiveJob active, int placed, int total, JobPhase phase) {
+        if (phase == active.lastSentPhase) {
+            if (placed == active.lastSentPlaced) {
+                return;
+            }
+            int step = Config.serverJobsProgressPercentStep;
+            boolean bucketChanged = step > 0 && total > 0
+                    && percentBucket(placed, total, step) != percentBucket(active.lastSentPlaced, total, step);
+            boolean intervalElapsed = active.ticksRun - active.lastSentTick >= Config.serverJobsProgressIntervalTicks;
+            if (!bucketChanged && !intervalElapsed) {
+                return;
+            }
+        }
+        active.lastSentPhase = phase;
+        active.lastSentPlaced = placed;
+        active.lastSentTick = active.ticksRun;
+
+        String message = switch (phase) {
+            case PAUSED -> "Pausiert: Server ausgelastet";
+            case ROLLING_BACK -> "Rollback: " + progressMessage(placed, total, false);
+            default -> progressMessage(placed, total, phase == JobPhase.COMPLETED);
+        };
+        EasyBuildPacketSender.sendTo(active.level, active.state.job().ownerUuid(), new ClientboundProgressUpdate(
+                active.state.job().jobId(),
+                active.state.job().schematic(),
+                placed,
+                total,
+                phase,
+                message,
+                ThreadLocalRandom.current().nextLong(),
+                System.currentTimeMillis()
+        ));
+    }
+
+    private static int percentBucket(int placed, int total, int step) {
+        return (int) ((long) placed * 100L / total / step);
+    }
+
     private String progressMessage(int placed, int total, boolean finished) {
         if (finished) {
             return "Abgeschlossen";
@@ -630,18 +1149,40 @@ public final class BuildJobManager {
         return placed + " / " + total;
     }
 
+    /**
+     * Queue and running jobs of a single dimension, only touched from that level's tick and the server thread.
+     */
+    private static final class LevelScheduler {
+        private final JobQueue queue = new JobQueue();
+        private final List<ActiveJob> activeJobs = new ArrayList<>();
+        private int rotation;
+    }
+
+    private record FailureReport(String reasonCode, String details) {
+    }
+
     private static final class ActiveJob {
         private final BuildJobState state;
         private final ServerLevel level;
-        private final BlockPlacementExecutor executor;
+        private final JobExecutor executor;
+        private final UndoJournal journal;
+        private final FailureReport rollbackOf;
+        private final long weight;
         private int stalledTicks;
-        private int lastPlaced;
+        private long lastProgress;
+        private int ticksRun;
+        private JobPhase lastSentPhase;
+        private int lastSentPlaced;
+        private int lastSentTick;
 
-        private ActiveJob(BuildJobState state, ServerLevel level, BlockPlacementExecutor executor) {
+        private ActiveJob(BuildJobState state, ServerLevel level, JobExecutor executor, UndoJournal journal, FailureReport rollbackOf) {
             this.state = state;
             this.level = level;
             this.executor = executor;
-            this.lastPlaced = executor.placedBlocks();
+            this.journal = journal;
+            this.rollbackOf = rollbackOf;
+            this.weight = Math.min(MAX_SCHEDULING_WEIGHT, executor.blocksPerTick());
+            this.lastProgress = executor.progressCounter();
             this.stalledTicks = 0;
         }
     }
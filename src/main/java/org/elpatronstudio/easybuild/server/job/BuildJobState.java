@@ -4,7 +4,9 @@ import org.elpatronstudio.easybuild.core.model.JobPhase;
 
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Mutable state holder for an active build job.
@@ -13,15 +15,24 @@ public final class BuildJobState {
 
     private final BuildJob job;
     private final UUID reservationToken;
+    private final String ownerName;
     private final AtomicInteger placed = new AtomicInteger();
     private final AtomicInteger total = new AtomicInteger();
     private volatile JobPhase phase = JobPhase.QUEUED;
     private volatile BlockPlacementPlan plan;
     private volatile RegionLockManager.RegionLock regionLock;
-
-    public BuildJobState(BuildJob job, UUID reservationToken) {
+    private final long queuedAt;
+    private volatile long startedAt;
+    private final AtomicLong placementNanos = new AtomicLong();
+    private final AtomicLong placementTicks = new AtomicLong();
+    private final AtomicLong maxPlacementNanos = new AtomicLong();
+    private final AtomicLong maxBudgetOverrunNanos = new AtomicLong();
+
+    public BuildJobState(BuildJob job, UUID reservationToken, String ownerName) {
         this.job = Objects.requireNonNull(job, "job");
         this.reservationToken = Objects.requireNonNull(reservationToken, "reservationToken");
+        this.ownerName = ownerName != null ? ownerName : "";
+        this.queuedAt = System.currentTimeMillis();
     }
 
     public BuildJob job() {
@@ -32,6 +43,13 @@ public final class BuildJobState {
         return reservationToken;
     }
 
+    /**
+     * Name of the submitting player as known when the job was submitted; empty if unknown.
+     */
+    public String ownerName() {
+        return ownerName;
+    }
+
     public JobPhase phase() {
         return phase;
     }
@@ -69,4 +87,80 @@ public final class BuildJobState {
     public void attachRegionLock(RegionLockManager.RegionLock lock) {
         this.regionLock = lock;
     }
+
+    public long queuedAt() {
+        return queuedAt;
+    }
+
+    public long startedAt() {
+        return startedAt;
+    }
+
+    public void markStarted(long timestamp) {
+        if (startedAt == 0L) {
+            startedAt = timestamp;
+        }
+    }
+
+    /**
+     * Time spent waiting in the queue; still growing while the job has not started.
+     */
+    public long queueWaitMs() {
+        long end = startedAt != 0L ? startedAt : System.currentTimeMillis();
+        return Math.max(0L, end - queuedAt);
+    }
+
+    /**
+     * Records one executor tick that took {@code nanos} against the {@code budgetNanos} the scheduler granted it.
+     */
+    public void recordPlacementTick(long nanos, long budgetNanos) {
+        placementNanos.addAndGet(Math.max(0L, nanos));
+        placementTicks.incrementAndGet();
+        maxPlacementNanos.accumulateAndGet(nanos, Math::max);
+        maxBudgetOverrunNanos.accumulateAndGet(nanos - budgetNanos, Math::max);
+    }
+
+    public long placementNanos() {
+        return placementNanos.get();
+    }
+
+    public long placementTicks() {
+        return placementTicks.get();
+    }
+
+    /**
+     * Longest single tick spent in the executor for this job, in nanoseconds.
+     */
+    public long maxPlacementNanos() {
+        return maxPlacementNanos.get();
+    }
+
+    /**
+     * Largest amount by which a single tick overran the budget it was granted, in nanoseconds; {@code 0} if none did.
+     */
+    public long maxBudgetOverrunNanos() {
+        return maxBudgetOverrunNanos.get();
+    }
+
+    /**
+     * Wall-clock throughput since the job started placing.
+     */
+    public double blocksPerSecond() {
+        if (startedAt == 0L) {
+            return 0.0D;
+        }
+        long elapsedMs = Math.max(1L, System.currentTimeMillis() - startedAt);
+        return placed.get() * 1000.0D / elapsedMs;
+    }
+
+    /**
+     * Blocks placed per millisecond of server-thread time actually spent in the executor.
+     */
+    public double blocksPerPlacementMs() {
+        long nanos = placementNanos.get();
+        if (nanos <= 0L) {
+            return 0.0D;
+        }
+        return placed.get() / (nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
 }
@@ -0,0 +1,114 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.common.world.chunk.RegisterTicketControllersEvent;
+import net.neoforged.neoforge.common.world.chunk.TicketController;
+import org.elpatronstudio.esaybuildauto.Esaybuildauto;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Keeps the chunks just ahead of an executor loaded with forced tickets so remote builds do not stall.
+ * <p>
+ * The window covers the plan indices from the lowest placement whose work is not settled (not written yet, or still
+ * waiting for block entity data or deferred updates) up to a lookahead cursor; every chunk referenced inside the window
+ * holds one ticket, which is released as soon as the window moves past its last placement. The window only grows while
+ * fewer than {@code maxTickets} chunks are held. Besides plans, the window can walk any sequence of chunk keys, such as
+ * the sections of an undo journal segment during rollback.
+ */
+public final class ChunkPreloader {
+
+    public static final TicketController TICKETS = new TicketController(
+            ResourceLocation.fromNamespaceAndPath(Esaybuildauto.MODID, "build_preload"),
+            (level, helper) -> List.copyOf(helper.getEntityTickets().keySet()).forEach(helper::removeAllTickets)
+    );
+
+    private static final int MAX_LOOKAHEAD_SCAN_PER_TICK = 8192;
+
+    private final ServerLevel level;
+    private final int size;
+    private final IntToLongFunction chunkKeys;
+    private final UUID owner;
+    private final int maxTickets;
+    private final Long2IntOpenHashMap windowCounts = new Long2IntOpenHashMap();
+    private int windowStart;
+    private int lookaheadCursor;
+
+    ChunkPreloader(ServerLevel level, List<BlockPlacement> placements, UUID owner, int maxTickets) {
+        this(level, placements.size(), index -> chunkKey(placements.get(index).position()), owner, maxTickets);
+    }
+
+    /**
+     * Preloads the chunks {@code chunkKeys} returns for the indices {@code 0} to {@code size - 1}, in that order.
+     */
+    ChunkPreloader(ServerLevel level, int size, IntToLongFunction chunkKeys, UUID owner, int maxTickets) {
+        this.level = level;
+        this.size = size;
+        this.chunkKeys = chunkKeys;
+        this.owner = owner;
+        this.maxTickets = maxTickets;
+    }
+
+    public static void onRegisterTicketControllers(RegisterTicketControllersEvent event) {
+        event.register(TICKETS);
+    }
+
+    /**
+     * Releases chunks behind {@code lowestOutstanding}, the lowest unsettled plan index, and requests tickets for
+     * upcoming chunks.
+     */
+    void update(int lowestOutstanding) {
+        int target = Math.min(lowestOutstanding, size);
+        while (windowStart < target && windowStart < lookaheadCursor) {
+            long key = chunkKeys.applyAsLong(windowStart);
+            int left = windowCounts.addTo(key, -1) - 1;
+            if (left <= 0) {
+                windowCounts.remove(key);
+                force(key, false);
+            }
+            windowStart++;
+        }
+        windowStart = Math.max(windowStart, target);
+        lookaheadCursor = Math.max(lookaheadCursor, windowStart);
+
+        int scanned = 0;
+        while (lookaheadCursor < size && scanned < MAX_LOOKAHEAD_SCAN_PER_TICK) {
+            long key = chunkKeys.applyAsLong(lookaheadCursor);
+            if (!windowCounts.containsKey(key)) {
+                if (windowCounts.size() >= maxTickets) {
+                    break;
+                }
+                force(key, true);
+            }
+            windowCounts.addTo(key, 1);
+            lookaheadCursor++;
+            scanned++;
+        }
+    }
+
+    int heldTickets() {
+        return windowCounts.size();
+    }
+
+    void releaseAll() {
+        for (long key : windowCounts.keySet()) {
+            force(key, false);
+        }
+        windowCounts.clear();
+        windowStart = lookaheadCursor;
+    }
+
+    private void force(long key, boolean add) {
+        TICKETS.forceChunk(level, owner, ChunkPos.getX(key), ChunkPos.getZ(key), add, false);
+    }
+
+    private static long chunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+}
@@ -0,0 +1,130 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.FallingBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+import org.slf4j.Logger;
+
+import java.util.List;
+
+/**
+ * Replays neighbor updates, shape updates and scheduled ticks for blocks written with {@link #PLACEMENT_FLAGS}.
+ * <p>
+ * Changed positions are collected per chunk and released once every placement of that chunk has been written, so
+ * redstone, fluids and falling blocks only react to finished chunks. The pass is bounded per tick. Positions are kept
+ * as plan indices so {@link #oldestPending()} can tell a checkpoint where unfinished work starts.
+ */
+final class DeferredUpdatePass {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    static final int PLACEMENT_FLAGS = Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE;
+
+    private static final int MAX_UPDATES_PER_TICK = 4096;
+    private static final int DEADLINE_CHECK_INTERVAL = 16;
+    private static final int FALLING_BLOCK_DELAY = 2;
+    private static final int SHAPE_UPDATE_FLAGS = Block.UPDATE_CLIENTS;
+
+    private final ServerLevel level;
+    private final List<BlockPlacement> placements;
+    private final Long2IntOpenHashMap remainingPerChunk = new Long2IntOpenHashMap();
+    private final Long2ObjectOpenHashMap<IntArrayList> changedPerChunk = new Long2ObjectOpenHashMap<>();
+    private final IntArrayFIFOQueue ready = new IntArrayFIFOQueue();
+
+    DeferredUpdatePass(ServerLevel level, List<BlockPlacement> placements) {
+        this.level = level;
+        this.placements = placements;
+        for (BlockPlacement placement : placements) {
+            remainingPerChunk.addTo(chunkKey(placement.position()), 1);
+        }
+    }
+
+    void record(int index, boolean changed) {
+        long chunkKey = chunkKey(placements.get(index).position());
+        if (changed) {
+            changedPerChunk.computeIfAbsent(chunkKey, key -> new IntArrayList()).add(index);
+        }
+
+        int left = remainingPerChunk.addTo(chunkKey, -1) - 1;
+        if (left > 0) {
+            return;
+        }
+        remainingPerChunk.remove(chunkKey);
+        IntArrayList finished = changedPerChunk.remove(chunkKey);
+        if (finished != null) {
+            for (int i = 0; i < finished.size(); i++) {
+                ready.enqueue(finished.getInt(i));
+            }
+        }
+    }
+
+    /**
+     * Lowest plan index whose updates have not run yet, including chunks still being written, or
+     * {@link Integer#MAX_VALUE} if nothing is outstanding.
+     */
+    int oldestPending() {
+        int oldest = ready.isEmpty() ? Integer.MAX_VALUE : ready.firstInt();
+        for (IntArrayList changed : changedPerChunk.values()) {
+            oldest = Math.min(oldest, changed.getInt(0));
+        }
+        return oldest;
+    }
+
+    boolean isIdle() {
+        return ready.isEmpty();
+    }
+
+    int pending() {
+        return ready.size();
+    }
+
+    /**
+     * Runs neighbor updates, shape updates and scheduled ticks for finished chunks until the cap or the deadline is reached.
+     */
+    void run(long deadlineNanos, boolean enforceDeadline) {
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int processed = 0;
+        int unloaded = 0;
+        while (!ready.isEmpty() && processed < MAX_UPDATES_PER_TICK) {
+            if (enforceDeadline && processed > 0 && processed % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                break;
+            }
+            pos.set(placements.get(ready.dequeueInt()).position());
+            processed++;
+            if (!level.isLoaded(pos)) {
+                unloaded++;
+                continue;
+            }
+
+            BlockState state = level.getBlockState(pos);
+            level.updateNeighborsAt(pos, state.getBlock());
+            // Lets fences, panes and walls around the block reconnect, as a vanilla setBlock would
+            state.updateNeighbourShapes(level, pos, SHAPE_UPDATE_FLAGS);
+            state.updateIndirectNeighbourShapes(level, pos, SHAPE_UPDATE_FLAGS);
+
+            FluidState fluid = state.getFluidState();
+            if (!fluid.isEmpty()) {
+                level.scheduleTick(pos, fluid.getType(), fluid.getType().getTickDelay(level));
+            }
+            if (state.getBlock() instanceof FallingBlock) {
+                level.scheduleTick(pos, state.getBlock(), FALLING_BLOCK_DELAY);
+            }
+        }
+        if (unloaded > 0) {
+            LOGGER.warn("Skipped deferred updates for {} blocks in chunks that were unloaded before the pass reached them", unloaded);
+        }
+    }
+
+    private static long chunkKey(BlockPos pos) {
+        return ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+}
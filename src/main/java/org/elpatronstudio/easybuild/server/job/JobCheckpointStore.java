@@ -0,0 +1,327 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.storage.LevelResource;
+import org.elpatronstudio.easybuild.core.model.AnchorPos;
+import org.elpatronstudio.easybuild.core.model.PasteMode;
+import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persists accepted build jobs under {@code easybuild/jobs/<jobId>/} in the world save so they survive restarts.
+ * <p>
+ * {@code job.dat} and {@code plan.dat} are written once when a job is accepted; {@code cursor.dat} is a small
+ * checkpoint rewritten periodically while the job runs. All encoding and file IO happens on a single background
+ * thread, which is shared with the {@link UndoJournal} so journal segments and checkpoints land in order.
+ */
+final class JobCheckpointStore {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long FLUSH_TIMEOUT_SECONDS = 10L;
+
+    static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EasyBuild-Storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path root;
+
+    JobCheckpointStore(MinecraftServer server) {
+        this.root = server.getWorldPath(LevelResource.ROOT).resolve("easybuild").resolve("jobs");
+    }
+
+    /**
+     * Writes job description and plan of a freshly accepted job.
+     */
+    void saveJob(BuildJobState state, String ownerName, BlockPlacementPlan plan) {
+        Path directory = root.resolve(state.job().jobId());
+        CompletableFuture.runAsync(() -> {
+            writeCompressed(encodeJob(state, ownerName), directory.resolve("job.dat"));
+            writeCompressed(encodePlan(plan), directory.resolve("plan.dat"));
+        }, IO).exceptionally(error -> {
+            LOGGER.error("Failed to persist job {}", state.job().jobId(), error);
+            return null;
+        });
+    }
+
+    void saveCheckpoint(String jobId, Checkpoint checkpoint) {
+        Path file = root.resolve(jobId).resolve("cursor.dat");
+        CompletableFuture.runAsync(() -> writeCompressed(checkpoint.toTag(), file), IO).exceptionally(error -> {
+            LOGGER.error("Failed to write checkpoint for job {}", jobId, error);
+            return null;
+        });
+    }
+
+    void delete(String jobId) {
+        Path directory = root.resolve(jobId);
+        IO.execute(() -> deleteDirectory(directory));
+    }
+
+    /**
+     * Waits for all queued writes; used while the server stops.
+     */
+    void flush() {
+        try {
+            CompletableFuture.runAsync(() -> {
+            }, IO).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            LOGGER.warn("Timed out waiting for EasyBuild job storage to flush", ex);
+        }
+    }
+
+    /**
+     * Reads every persisted job. Jobs whose files are incomplete or unreadable are deleted.
+     */
+    List<StoredJob> loadAll(HolderLookup<Block> blockLookup) {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        List<StoredJob> stored = new ArrayList<>();
+        try (Stream<Path> directories = Files.list(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                try {
+                    Path jobFile = directory.resolve("job.dat");
+                    Path planFile = directory.resolve("plan.dat");
+                    if (!Files.isRegularFile(jobFile) || !Files.isRegularFile(planFile)) {
+                        LOGGER.warn("Dropping incomplete EasyBuild job {}", directory.getFileName());
+                        deleteDirectory(directory);
+                        continue;
+                    }
+                    CompoundTag jobTag = NbtIo.readCompressed(jobFile, NbtAccounter.unlimitedHeap());
+                    BlockPlacementPlan plan = decodePlan(NbtIo.readCompressed(planFile, NbtAccounter.unlimitedHeap()), blockLookup);
+                    Path cursorFile = directory.resolve("cursor.dat");
+                    Checkpoint checkpoint = Files.isRegularFile(cursorFile)
+                            ? Checkpoint.fromTag(NbtIo.readCompressed(cursorFile, NbtAccounter.unlimitedHeap()))
+                            : Checkpoint.initial();
+                    stored.add(decodeJob(jobTag, plan, checkpoint));
+                } catch (Exception ex) {
+                    LOGGER.warn("Dropping unreadable EasyBuild job {}", directory.getFileName(), ex);
+                    deleteDirectory(directory);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Failed to list persisted EasyBuild jobs in {}", root, ex);
+        }
+        return stored;
+    }
+
+    static void writeCompressed(CompoundTag tag, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            NbtIo.writeCompressed(tag, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static void deleteDirectory(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to delete {}", directory, ex);
+        }
+    }
+
+    private static CompoundTag encodeJob(BuildJobState state, String ownerName) {
+        BuildJob job = state.job();
+        CompoundTag tag = new CompoundTag();
+        tag.putString("JobId", job.jobId());
+        tag.putString("Owner", job.ownerUuid().toString());
+        tag.putString("OwnerName", ownerName == null ? "" : ownerName);
+        tag.putString("ReservationToken", state.reservationToken().toString());
+        tag.putString("SchematicId", job.schematic().schematicId());
+        tag.putInt("SchematicVersion", job.schematic().version());
+        tag.putLong("SchematicChecksum", job.schematic().checksum());
+        tag.putString("Dimension", job.anchor().dimension().toString());
+        tag.putInt("X", job.anchor().x());
+        tag.putInt("Y", job.anchor().y());
+        tag.putInt("Z", job.anchor().z());
+        tag.putString("Facing", job.anchor().facing().getSerializedName());
+        tag.putString("Mode", job.mode().name());
+        tag.putString("Options", job.options().toString());
+        tag.putLong("CreatedAt", job.createdAt());
+        tag.putString("ClientRequestId", job.clientRequestId());
+        return tag;
+    }
+
+    private static StoredJob decodeJob(CompoundTag tag, BlockPlacementPlan plan, Checkpoint checkpoint) {
+        Direction facing = Direction.byName(tag.getStringOr("Facing", "north"));
+        AnchorPos anchor = new AnchorPos(
+                ResourceLocation.parse(tag.getStringOr("Dimension", "minecraft:overworld")),
+                tag.getIntOr("X", 0),
+                tag.getIntOr("Y", 0),
+                tag.getIntOr("Z", 0),
+                facing != null ? facing : Direction.NORTH
+        );
+        JsonObject options = JsonParser.parseString(tag.getStringOr("Options", "{}")).getAsJsonObject();
+        BuildJob job = new BuildJob(
+                tag.getStringOr("JobId", ""),
+                UUID.fromString(tag.getStringOr("Owner", "")),
+                new SchematicRef(tag.getStringOr("SchematicId", ""), tag.getIntOr("SchematicVersion", 0), tag.getLongOr("SchematicChecksum", 0L)),
+                anchor,
+                PasteMode.valueOf(tag.getStringOr("Mode", PasteMode.STEP.name())),
+                options,
+                tag.getLongOr("CreatedAt", System.currentTimeMillis()),
+                tag.getStringOr("ClientRequestId", "")
+        );
+        String ownerName = tag.getStringOr("OwnerName", "");
+        BuildJobState state = new BuildJobState(job, UUID.fromString(tag.getStringOr("ReservationToken", "")), ownerName);
+        return new StoredJob(state, ownerName, plan, checkpoint);
+    }
+
+    private static CompoundTag encodePlan(BlockPlacementPlan plan) {
+        List<BlockPlacement> placements = plan.placements();
+        int size = placements.size();
+        Map<BlockState, Integer> paletteIndex = new HashMap<>();
+        ListTag palette = new ListTag();
+        long[] positions = new long[size];
+        int[] states = new int[size];
+        ListTag blockEntities = new ListTag();
+        for (int i = 0; i < size; i++) {
+            BlockPlacement placement = placements.get(i);
+            positions[i] = placement.position().asLong();
+            Integer index = paletteIndex.get(placement.state());
+            if (index == null) {
+                index = palette.size();
+                paletteIndex.put(placement.state(), index);
+                palette.add(NbtUtils.writeBlockState(placement.state()));
+            }
+            states[i] = index;
+            if (placement.blockEntityTag() != null) {
+                CompoundTag entry = new CompoundTag();
+                entry.putInt("Index", i);
+                entry.put("Tag", placement.blockEntityTag().copy());
+                blockEntities.add(entry);
+            }
+        }
+
+        BlockRegion region = plan.region();
+        CompoundTag tag = new CompoundTag();
+        tag.put("Palette", palette);
+        tag.putLongArray("Positions", positions);
+        tag.putIntArray("States", states);
+        tag.put("BlockEntities", blockEntities);
+        tag.putIntArray("Region", new int[]{region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ()});
+        return tag;
+    }
+
+    private static BlockPlacementPlan decodePlan(CompoundTag tag, HolderLookup<Block> blockLookup) {
+        ListTag paletteTag = tag.getListOrEmpty("Palette");
+        BlockState[] palette = new BlockState[paletteTag.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = NbtUtils.readBlockState(blockLookup, paletteTag.getCompoundOrEmpty(i));
+        }
+        long[] positions = tag.getLongArray("Positions").orElse(new long[0]);
+        int[] states = tag.getIntArray("States").orElse(new int[0]);
+        if (positions.length != states.length) {
+            throw new IllegalStateException("Corrupt plan: " + positions.length + " positions, " + states.length + " states");
+        }
+        CompoundTag[] blockEntities = new CompoundTag[positions.length];
+        ListTag blockEntityTag = tag.getListOrEmpty("BlockEntities");
+        for (int i = 0; i < blockEntityTag.size(); i++) {
+            CompoundTag entry = blockEntityTag.getCompoundOrEmpty(i);
+            int index = entry.getIntOr("Index", -1);
+            if (index >= 0 && index < blockEntities.length) {
+                blockEntities[index] = entry.getCompoundOrEmpty("Tag");
+            }
+        }
+
+        List<BlockPlacement> placements = new ArrayList<>(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            placements.add(new BlockPlacement(BlockPos.of(positions[i]), palette[states[i]], blockEntities[i]));
+        }
+        int[] region = tag.getIntArray("Region").orElse(new int[0]);
+        BlockRegion bounds = region.length == 6
+                ? new BlockRegion(region[0], region[1], region[2], region[3], region[4], region[5])
+                : BlockRegion.fromPlacements(placements, BlockPos.ZERO);
+        return new BlockPlacementPlan(placements, bounds);
+    }
+
+    /**
+     * A job read back from disk together with its last checkpoint.
+     */
+    record StoredJob(BuildJobState state, String ownerName, BlockPlacementPlan plan, Checkpoint checkpoint) {
+    }
+
+    /**
+     * Resume point of a job: the lowest plan index not yet written, the lowest index whose block entity data or
+     * deferred updates are still outstanding, progress counters and, while rolling back, the failure that triggered
+     * the rollback. While rolling back, {@code placed} counts the journal entries already restored in deleted segments.
+     */
+    record Checkpoint(int cursor, int settled, int placed, int unchanged, long journalEntries, String rollbackReason,
+                      String rollbackDetails) {
+
+        static Checkpoint initial() {
+            return new Checkpoint(0, 0, 0, 0, 0L, "", "");
+        }
+
+        boolean rollingBack() {
+            return !rollbackReason.isEmpty();
+        }
+
+        private CompoundTag toTag() {
+            CompoundTag tag = new CompoundTag();
+            tag.putInt("Cursor", cursor);
+            tag.putInt("Settled", settled);
+            tag.putInt("Placed", placed);
+            tag.putInt("Unchanged", unchanged);
+            tag.putLong("JournalEntries", journalEntries);
+            tag.putString("RollbackReason", rollbackReason);
+            tag.putString("RollbackDetails", rollbackDetails);
+            tag.putLong("SavedAt", System.currentTimeMillis());
+            return tag;
+        }
+
+        private static Checkpoint fromTag(CompoundTag tag) {
+            int cursor = Math.max(0, tag.getIntOr("Cursor", 0));
+            return new Checkpoint(
+                    cursor,
+                    Math.min(Math.max(0, tag.getIntOr("Settled", cursor)), cursor),
+                    Math.max(0, tag.getIntOr("Placed", 0)),
+                    Math.max(0, tag.getIntOr("Unchanged", 0)),
+                    Math.max(0L, tag.getLongOr("JournalEntries", 0L)),
+                    tag.getStringOr("RollbackReason", ""),
+                    tag.getStringOr("RollbackDetails", "")
+            );
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.elpatronstudio.easybuild.server.job;
+
+/**
+ * Work a running job performs in slices from the level tick: either placing its plan or rolling it back.
+ */
+interface JobExecutor {
+
+    /**
+     * Performs up to {@code blockLimit} writes, stopping early at {@code deadlineNanos}; returns {@code true} once done.
+     */
+    boolean tick(long deadlineNanos, int blockLimit) throws BlockPlacementException;
+
+    int placedBlocks();
+
+    int totalBlocks();
+
+    /**
+     * Monotonic counter used for stall detection.
+     */
+    long progressCounter();
+
+    int blocksPerTick();
+
+    /**
+     * Releases resources such as chunk tickets once the job stops running.
+     */
+    void close();
+}
@@ -0,0 +1,79 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import org.elpatronstudio.easybuild.core.model.PasteMode;
+import org.elpatronstudio.esaybuildauto.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Queue of jobs waiting to start, ordered shortest-job-first with aging.
+ * <p>
+ * A job's priority is {@code log2(1 + cost) - waited / agingSeconds}, where cost is the estimated remaining blocks
+ * scaled by the paste mode and divided by the owner's configured weight; the lowest value starts first. The logarithm
+ * keeps small pastes ahead of large ones while letting every job overtake fresh work after a bounded wait, so large
+ * builds are never starved. Priorities change with time, so {@link #poll()} scans the waiting jobs instead of keeping
+ * a heap; queues stay small because only jobs beyond {@code maxConcurrentJobs} wait here.
+ */
+final class JobQueue {
+
+    private static final double SIMULATED_COST_FACTOR = 2.0;
+
+    private final List<BuildJobState> waiting = new ArrayList<>();
+
+    synchronized void add(BuildJobState state) {
+        waiting.add(state);
+    }
+
+    synchronized boolean remove(BuildJobState state) {
+        return waiting.remove(state);
+    }
+
+    synchronized int size() {
+        return waiting.size();
+    }
+
+    /**
+     * Removes and returns the job that should start next, or {@code null} if none is waiting.
+     */
+    synchronized BuildJobState poll() {
+        if (waiting.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        double agingMs = Math.max(1, Config.serverJobsQueueAgingSeconds) * 1000.0;
+        int best = 0;
+        double bestPriority = Double.MAX_VALUE;
+        for (int i = 0; i < waiting.size(); i++) {
+            double priority = priority(waiting.get(i), now, agingMs);
+            // Strictly lower only, so equal priorities keep arrival order
+            if (priority < bestPriority) {
+                bestPriority = priority;
+                best = i;
+            }
+        }
+        return waiting.remove(best);
+    }
+
+    private static double priority(BuildJobState state, long now, double agingMs) {
+        double waited = Math.max(0L, now - state.queuedAt()) / agingMs;
+        return Math.log1p(cost(state)) / Math.log(2.0) - waited;
+    }
+
+    private static double cost(BuildJobState state) {
+        double remaining = Math.max(0, state.total() - state.placed());
+        if (state.job().mode() == PasteMode.SIMULATED) {
+            remaining *= SIMULATED_COST_FACTOR;
+        }
+        return remaining / playerWeight(state);
+    }
+
+    private static double playerWeight(BuildJobState state) {
+        Double weight = Config.serverJobsPlayerWeightsByUuid.get(state.job().ownerUuid());
+        if (weight == null && !state.ownerName().isEmpty()) {
+            weight = Config.serverJobsPlayerWeightsByName.get(state.ownerName().toLowerCase(Locale.ROOT));
+        }
+        return weight != null ? weight : 1.0;
+    }
+}
@@ -0,0 +1,9 @@
+package org.elpatronstudio.easybuild.server.job;
+
+/**
+ * Strategies for splitting the per-tick placement budget across running build jobs.
+ */
+public enum JobSchedulingPolicy {
+    ROUND_ROBIN,
+    WEIGHTED;
+}
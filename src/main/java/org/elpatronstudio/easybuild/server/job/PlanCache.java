@@ -0,0 +1,143 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.elpatronstudio.esaybuildauto.Config;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of anchor-relative plans, keyed by schematic checksum, rotation and {@code placeAir}.
+ * <p>
+ * Entries keep positions, states and block entity tags in flat arrays and are evicted by their estimated heap weight
+ * once {@code server.jobs.planCacheMb} is exceeded. An entry only matches while the server still resolves the same
+ * {@link StructureTemplate} instance, so reloaded templates are planned again. Accessed from the planning pool.
+ */
+final class PlanCache {
+
+    private static final long BYTES_PER_PLACEMENT = 24L;
+    private static final long BYTES_PER_BLOCK_ENTITY = 512L;
+    private static final long ENTRY_OVERHEAD = 128L;
+
+    private final LinkedHashMap<Key, RelativePlan> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    /**
+     * Returns the cache key for a schematic, or {@code null} if it carries no checksum and must not be cached.
+     */
+    static Key key(SchematicRef schematic, Rotation rotation, boolean includeAir) {
+        if (schematic.checksum() == 0L) {
+            return null;
+        }
+        return new Key(schematic.schematicId(), schematic.checksum(), rotation, includeAir);
+    }
+
+    synchronized RelativePlan get(Key key, StructureTemplate template) {
+        RelativePlan plan = entries.get(key);
+        if (plan == null) {
+            return null;
+        }
+        if (plan.template != template) {
+            entries.remove(key);
+            weight -= plan.weight;
+            return null;
+        }
+        return plan;
+    }
+
+    synchronized void put(Key key, RelativePlan plan) {
+        long limit = Math.max(0L, Config.serverJobsPlanCacheMb) * 1024L * 1024L;
+        if (plan.weight > limit) {
+            return;
+        }
+        RelativePlan previous = entries.put(key, plan);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += plan.weight;
+
+        Iterator<Map.Entry<Key, RelativePlan>> eldest = entries.entrySet().iterator();
+        while (weight > limit && eldest.hasNext()) {
+            RelativePlan evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weightBytes() {
+        return weight;
+    }
+
+    record Key(String schematicId, long checksum, Rotation rotation, boolean includeAir) {
+    }
+
+    /**
+     * Placements relative to the anchor, in the order the template produced them.
+     */
+    static final class RelativePlan {
+        private final StructureTemplate template;
+        private final long[] offsets;
+        private final BlockState[] states;
+        private final CompoundTag[] blockEntityTags;
+        private final long weight;
+
+        RelativePlan(StructureTemplate template, List<BlockPlacement> relativePlacements) {
+            int size = relativePlacements.size();
+            this.template = template;
+            this.offsets = new long[size];
+            this.states = new BlockState[size];
+            this.blockEntityTags = new CompoundTag[size];
+            int blockEntities = 0;
+            for (int i = 0; i < size; i++) {
+                BlockPlacement placement = relativePlacements.get(i);
+                offsets[i] = placement.position().asLong();
+                states[i] = placement.state();
+                blockEntityTags[i] = placement.blockEntityTag();
+                if (placement.blockEntityTag() != null) {
+                    blockEntities++;
+                }
+            }
+            this.weight = ENTRY_OVERHEAD + size * BYTES_PER_PLACEMENT + blockEntities * BYTES_PER_BLOCK_ENTITY;
+        }
+
+        int size() {
+            return offsets.length;
+        }
+
+        /**
+         * Creates world-space placements for {@code anchor}; block entity tags are copied and get their world position.
+         */
+        List<BlockPlacement> translate(BlockPos anchor) {
+            List<BlockPlacement> placements = new ArrayList<>(offsets.length);
+            for (int i = 0; i < offsets.length; i++) {
+                long offset = offsets[i];
+                BlockPos worldPos = new BlockPos(
+                        anchor.getX() + BlockPos.getX(offset),
+                        anchor.getY() + BlockPos.getY(offset),
+                        anchor.getZ() + BlockPos.getZ(offset)
+                );
+                CompoundTag nbt = blockEntityTags[i];
+                if (nbt != null) {
+                    nbt = nbt.copy();
+                    nbt.putInt("x", worldPos.getX());
+                    nbt.putInt("y", worldPos.getY());
+                    nbt.putInt("z", worldPos.getZ());
+                }
+                placements.add(new BlockPlacement(worldPos, states[i], nbt));
+            }
+            return placements;
+        }
+    }
+}
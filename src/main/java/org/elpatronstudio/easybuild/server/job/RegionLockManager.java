@@ -1,10 +1,15 @@
 package org.elpatronstudio.easybuild.server.job;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
 import net.minecraft.resources.ResourceKey;
+import net.minecraft.util.profiling.Profiler;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.level.Level;
+import org.elpatronstudio.easybuild.server.diagnostics.RegionLockEvent;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -14,12 +19,18 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tracks mutually exclusive region locks for running EasyBuild jobs.
+ * <p>
+ * Locks cover the {@link SectionFootprint} of a plan rather than its bounding box, so two builds only conflict when
+ * they write to a common chunk section. Each dimension has its own monitor and a chunk-grid index: a lock is registered
+ * in every chunk column its footprint touches, so an overlap check only looks at locks sharing a column with the
+ * candidate. Lookups by job id go through a concurrent map and take no lock at all.
  */
 public final class RegionLockManager {
 
     private static final RegionLockManager INSTANCE = new RegionLockManager();
 
-    private final Map<ResourceKey<Level>, List<RegionLock>> locks = new ConcurrentHashMap<>();
+    private final Map<ResourceKey<Level>, DimensionLocks> dimensions = new ConcurrentHashMap<>();
+    private final Map<String, LockEntry> byJobId = new ConcurrentHashMap<>();
 
     private RegionLockManager() {
     }
@@ -29,22 +40,53 @@ public final class RegionLockManager {
     }
 
     public LockResult tryAcquire(ResourceKey<Level> dimension, BlockRegion region, UUID ownerUuid, String ownerName, String jobId, long estimatedTicks) {
+        Objects.requireNonNull(region, "region");
+        return tryAcquire(dimension, region, SectionFootprint.of(region), ownerUuid, ownerName, jobId, estimatedTicks);
+    }
+
+    public LockResult tryAcquire(ResourceKey<Level> dimension, BlockRegion region, SectionFootprint footprint, UUID ownerUuid, String ownerName,
+                                 String jobId, long estimatedTicks) {
         Objects.requireNonNull(dimension, "dimension");
         Objects.requireNonNull(region, "region");
+        Objects.requireNonNull(footprint, "footprint");
         Objects.requireNonNull(ownerUuid, "ownerUuid");
         Objects.requireNonNull(jobId, "jobId");
         String safeOwnerName = ownerName == null ? "" : ownerName;
 
+        RegionLockEvent event = new RegionLockEvent();
+        event.begin();
+        ProfilerFiller profiler = Profiler.get();
+        profiler.push("easybuild_region_lock");
+        LockResult result = null;
+        try {
+            result = acquire(dimension, region, footprint, ownerUuid, safeOwnerName, jobId, estimatedTicks);
+            return result;
+        } finally {
+            profiler.pop();
+            if (event.shouldCommit()) {
+                event.jobId = jobId;
+                event.dimension = dimension.location().toString();
+                event.sections = footprint.sectionCount();
+                event.acquired = result != null && result.success();
+                event.conflictJobId = result != null && result.conflict() != null ? result.conflict().jobId() : null;
+                event.commit();
+            }
+        }
+    }
+
+    private LockResult acquire(ResourceKey<Level> dimension, BlockRegion region, SectionFootprint footprint, UUID ownerUuid, String ownerName,
+                               String jobId, long estimatedTicks) {
+        DimensionLocks locks = dimensions.computeIfAbsent(dimension, key -> new DimensionLocks());
         synchronized (locks) {
-            List<RegionLock> entries = locks.computeIfAbsent(dimension, key -> new ArrayList<>());
-            for (RegionLock existing : entries) {
-                if (existing.region().intersects(region)) {
-                    return LockResult.conflict(existing);
-                }
+            RegionLock conflict = locks.findConflict(region, footprint);
+            if (conflict != null) {
+                return LockResult.conflict(conflict);
             }
 
-            RegionLock created = new RegionLock(dimension, region, ownerUuid, safeOwnerName, jobId, estimatedTicks, System.currentTimeMillis());
-            entries.add(created);
+            RegionLock created = new RegionLock(dimension, region, footprint, ownerUuid, ownerName, jobId, estimatedTicks, System.currentTimeMillis());
+            LockEntry entry = new LockEntry(created);
+            locks.add(entry);
+            byJobId.put(jobId, entry);
             return LockResult.acquired(created);
         }
     }
@@ -53,15 +95,38 @@ public final class RegionLockManager {
         if (lock == null) {
             return;
         }
+        DimensionLocks locks = dimensions.get(lock.dimension());
+        if (locks == null) {
+            return;
+        }
         synchronized (locks) {
-            List<RegionLock> entries = locks.get(lock.dimension());
-            if (entries == null) {
-                return;
+            LockEntry entry = locks.byJobId.get(lock.jobId());
+            if (entry != null) {
+                locks.remove(entry);
+                byJobId.remove(lock.jobId(), entry);
             }
-            entries.removeIf(existing -> existing.jobId().equals(lock.jobId()));
-            if (entries.isEmpty()) {
-                locks.remove(lock.dimension());
+        }
+    }
+
+    /**
+     * Replaces the estimated duration of a held lock and returns the updated lock, or {@code lock} if it is no longer held.
+     */
+    public RegionLock updateEstimate(RegionLock lock, long estimatedTicks) {
+        Objects.requireNonNull(lock, "lock");
+        DimensionLocks locks = dimensions.get(lock.dimension());
+        if (locks == null) {
+            return lock;
+        }
+        synchronized (locks) {
+            LockEntry entry = locks.byJobId.get(lock.jobId());
+            if (entry == null) {
+                return lock;
             }
+            RegionLock existing = entry.lock;
+            RegionLock updated = new RegionLock(existing.dimension(), existing.region(), existing.footprint(), existing.ownerUuid(),
+                    existing.ownerName(), existing.jobId(), estimatedTicks, existing.lockedAt());
+            entry.lock = updated;
+            return updated;
         }
     }
 
@@ -69,27 +134,114 @@ public final class RegionLockManager {
         if (jobId == null || jobId.isBlank()) {
             return Optional.empty();
         }
+        LockEntry entry = byJobId.get(jobId);
+        return entry != null ? Optional.of(entry.lock) : Optional.empty();
+    }
+
+    public List<RegionLock> getLocks(ResourceKey<Level> dimension) {
+        DimensionLocks locks = dimensions.get(dimension);
+        if (locks == null) {
+            return new ArrayList<>();
+        }
         synchronized (locks) {
-            for (List<RegionLock> entries : locks.values()) {
-                for (RegionLock lock : entries) {
-                    if (lock.jobId().equals(jobId)) {
-                        return Optional.of(lock);
-                    }
+            List<RegionLock> result = new ArrayList<>(locks.byJobId.size());
+            for (LockEntry entry : locks.byJobId.values()) {
+                result.add(entry.lock);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Number of held locks per dimension; dimensions without locks are left out.
+     */
+    public Map<ResourceKey<Level>, Integer> lockCounts() {
+        Map<ResourceKey<Level>, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<ResourceKey<Level>, DimensionLocks> entry : dimensions.entrySet()) {
+            DimensionLocks locks = entry.getValue();
+            synchronized (locks) {
+                if (!locks.byJobId.isEmpty()) {
+                    counts.put(entry.getKey(), locks.byJobId.size());
                 }
             }
         }
-        return Optional.empty();
+        return counts;
     }
 
-    public List<RegionLock> getLocks(ResourceKey<Level> dimension) {
-        synchronized (locks) {
-            return new ArrayList<>(locks.getOrDefault(dimension, Collections.emptyList()));
+    /**
+     * Drops all locks; called when the server stops so a new session starts clean.
+     */
+    public void clear() {
+        for (DimensionLocks locks : dimensions.values()) {
+            synchronized (locks) {
+                locks.buckets.clear();
+                locks.byJobId.clear();
+            }
+        }
+        dimensions.clear();
+        byJobId.clear();
+    }
+
+    /**
+     * Held lock plus a mutable slot so estimate updates do not touch the chunk buckets.
+     */
+    private static final class LockEntry {
+        private volatile RegionLock lock;
+
+        private LockEntry(RegionLock lock) {
+            this.lock = lock;
+        }
+    }
+
+    /**
+     * Locks of one dimension, indexed by the chunk columns their footprints cover. Guarded by its own monitor.
+     */
+    private static final class DimensionLocks {
+        private final Long2ObjectOpenHashMap<List<LockEntry>> buckets = new Long2ObjectOpenHashMap<>();
+        private final Map<String, LockEntry> byJobId = new LinkedHashMap<>();
+
+        private RegionLock findConflict(BlockRegion region, SectionFootprint footprint) {
+            LongIterator columns = footprint.columns().iterator();
+            while (columns.hasNext()) {
+                List<LockEntry> bucket = buckets.get(columns.nextLong());
+                if (bucket == null) {
+                    continue;
+                }
+                for (LockEntry entry : bucket) {
+                    RegionLock held = entry.lock;
+                    if (held.region().intersects(region) && held.footprint().intersects(footprint)) {
+                        return held;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void add(LockEntry entry) {
+            LongIterator columns = entry.lock.footprint().columns().iterator();
+            while (columns.hasNext()) {
+                buckets.computeIfAbsent(columns.nextLong(), key -> new ArrayList<>(2)).add(entry);
+            }
+            byJobId.put(entry.lock.jobId(), entry);
+        }
+
+        private void remove(LockEntry entry) {
+            LongIterator columns = entry.lock.footprint().columns().iterator();
+            while (columns.hasNext()) {
+                long key = columns.nextLong();
+                List<LockEntry> bucket = buckets.get(key);
+                if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+            byJobId.remove(entry.lock.jobId(), entry);
         }
     }
 
     public record RegionLock(
             ResourceKey<Level> dimension,
             BlockRegion region,
+            SectionFootprint footprint,
             UUID ownerUuid,
             String ownerName,
             String jobId,
@@ -99,6 +251,7 @@ public final class RegionLockManager {
         public RegionLock {
             Objects.requireNonNull(dimension, "dimension");
             Objects.requireNonNull(region, "region");
+            Objects.requireNonNull(footprint, "footprint");
             Objects.requireNonNull(ownerUuid, "ownerUuid");
             Objects.requireNonNull(jobId, "jobId");
             ownerName = ownerName == null ? "" : ownerName;
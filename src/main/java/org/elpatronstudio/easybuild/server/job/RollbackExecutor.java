@@ -0,0 +1,245 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.ProblemReporter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.storage.TagValueInput;
+import org.slf4j.Logger;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Replays an {@link UndoJournal} backwards, restoring the states a failed or cancelled job replaced.
+ * <p>
+ * Runs like any other job slice under the level's tick budget. The journal is flushed to disk first and its segments
+ * are restored newest-first; the next segment is read on the storage thread while the current one is written, and
+ * finished segments are deleted so a rollback resumed after a restart continues where it stopped and only counts the
+ * entries still left. Like the forward path, a {@link ChunkPreloader} keeps forced tickets on the chunks of the current
+ * segment's next sections and the rollback waits for a chunk to load instead of loading it inside the tick budget;
+ * with preloading disabled chunks are loaded on demand. Journaled block entity data is loaded back into the restored
+ * block entities.
+ * <p>
+ * Blocks are restored through {@link ServerLevel#setBlock} with {@link Block#UPDATE_ALL} rather than section writes:
+ * there is no {@link DeferredUpdatePass} here, so neighbours outside the plan (fences, redstone, fluids) have to be
+ * notified as each block changes back.
+ */
+final class RollbackExecutor implements JobExecutor {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int DEADLINE_CHECK_INTERVAL = 16;
+
+    private final ServerLevel level;
+    private final UndoJournal journal;
+    private final int blocksPerTick;
+    private final int total;
+    private final UUID ticketOwner;
+    private final int preloadChunks;
+
+    private UndoJournal.Segment current;
+    private CompletableFuture<UndoJournal.Segment> nextSegment;
+    private int currentSegmentIndex = -1;
+    private int nextSegmentIndex;
+    private int sectionCursor;
+    private int entryCursor;
+    private int restored;
+    private long droppedEntries;
+    private ChunkPreloader preloader;
+    private int loadedSection;
+
+    /**
+     * @param restoredBefore journal entries whose segments an earlier run of this rollback already restored and deleted
+     */
+    RollbackExecutor(ServerLevel level, UndoJournal journal, int blocksPerTick, long restoredBefore, UUID ticketOwner,
+                     int preloadChunks) {
+        this.level = level;
+        this.journal = journal;
+        this.blocksPerTick = Math.max(1, blocksPerTick);
+        this.ticketOwner = ticketOwner;
+        this.preloadChunks = preloadChunks;
+        this.droppedEntries = Math.max(0L, restoredBefore);
+        this.total = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, journal.recorded() - droppedEntries));
+        journal.flush();
+        this.nextSegmentIndex = journal.spilledSegments() - 1;
+        prefetch();
+    }
+
+    @Override
+    public int totalBlocks() {
+        return total;
+    }
+
+    @Override
+    public int placedBlocks() {
+        return restored;
+    }
+
+    @Override
+    public long progressCounter() {
+        return restored;
+    }
+
+    /**
+     * Journal entries in segments that are fully restored and deleted, including those of earlier runs; a checkpoint
+     * stores this so a resumed rollback knows how much is left.
+     */
+    long droppedEntries() {
+        return droppedEntries;
+    }
+
+    @Override
+    public int blocksPerTick() {
+        return blocksPerTick;
+    }
+
+    @Override
+    public void close() {
+        if (nextSegment != null) {
+            nextSegment.cancel(false);
+            nextSegment = null;
+        }
+        releaseTickets();
+    }
+
+    @Override
+    public boolean tick(long deadlineNanos, int blockLimit) throws BlockPlacementException {
+        int limit = Math.max(1, blockLimit);
+        int written = 0;
+        if (preloader != null) {
+            preloader.update(processedSections());
+        }
+        while (written < limit) {
+            if (written > 0 && written % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                break;
+            }
+            if (!advance()) {
+                break;
+            }
+            if (!sectionLoaded()) {
+                // Put the entry back and wait for the preloaded chunk
+                entryCursor++;
+                break;
+            }
+            BlockPos pos = current.position(sectionCursor, entryCursor);
+            BlockState state = current.state(sectionCursor, entryCursor);
+            level.setBlock(pos, state, Block.UPDATE_ALL);
+            CompoundTag blockEntityData = current.blockEntity(sectionCursor, entryCursor);
+            if (blockEntityData != null) {
+                restoreBlockEntity(pos, state, blockEntityData);
+            }
+            restored++;
+            written++;
+        }
+        boolean finished = current == null && nextSegment == null;
+        if (finished) {
+            releaseTickets();
+        }
+        return finished;
+    }
+
+    /**
+     * Whether the chunk of the current section is loaded. Checked once per section; always true without a preloader,
+     * in which case {@code setBlock} loads chunks on demand.
+     */
+    private boolean sectionLoaded() {
+        if (preloader == null || loadedSection == sectionCursor) {
+            return true;
+        }
+        long chunkKey = current.chunkKey(sectionCursor);
+        if (level.getChunkSource().getChunkNow(ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey)) == null) {
+            return false;
+        }
+        loadedSection = sectionCursor;
+        return true;
+    }
+
+    /**
+     * Sections of the current segment that are completely restored; sections are processed from the last one down.
+     */
+    private int processedSections() {
+        return current == null ? 0 : Math.max(0, current.sectionCount() - 1 - sectionCursor);
+    }
+
+    private void releaseTickets() {
+        if (preloader != null) {
+            preloader.releaseAll();
+            preloader = null;
+        }
+    }
+
+    /**
+     * Moves the cursor to the next entry to restore; returns {@code false} if none is available this tick.
+     */
+    private boolean advance() throws BlockPlacementException {
+        while (true) {
+            if (current != null) {
+                if (entryCursor > 0) {
+                    entryCursor--;
+                    return true;
+                }
+                if (sectionCursor > 0) {
+                    sectionCursor--;
+                    entryCursor = current.entryCount(sectionCursor);
+                    continue;
+                }
+                droppedEntries += current.entryCount();
+                current = null;
+                journal.dropSegment(currentSegmentIndex);
+            }
+            if (nextSegment == null || !nextSegment.isDone()) {
+                return false;
+            }
+            try {
+                currentSegmentIndex = nextSegmentIndex + 1;
+                startSegment(nextSegment.join());
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                throw new BlockPlacementException("ROLLBACK_FAILED", "Undo-Journal konnte nicht gelesen werden: " + cause.getMessage());
+            }
+            nextSegment = null;
+            prefetch();
+        }
+    }
+
+    private void restoreBlockEntity(BlockPos pos, BlockState state, CompoundTag data) {
+        BlockEntity blockEntity = level.getBlockEntity(pos);
+        if (blockEntity == null) {
+            LOGGER.warn("No block entity at {} after rollback, dropping its journaled data", pos);
+            return;
+        }
+        try (ProblemReporter.ScopedCollector collector = new ProblemReporter.ScopedCollector(blockEntity.problemPath(), LOGGER)) {
+            blockEntity.loadWithComponents(TagValueInput.create(collector, level.registryAccess(), data));
+        } catch (Exception ex) {
+            LOGGER.warn("Failed to restore block entity data at {}: {}", pos, ex.getMessage());
+            return;
+        }
+        blockEntity.setChanged();
+        level.sendBlockUpdated(pos, state, state, Block.UPDATE_CLIENTS);
+    }
+
+    private void startSegment(UndoJournal.Segment segment) {
+        current = segment;
+        sectionCursor = segment.sectionCount();
+        entryCursor = 0;
+        loadedSection = -1;
+        releaseTickets();
+        if (ticketOwner != null && preloadChunks > 0) {
+            int last = segment.sectionCount() - 1;
+            preloader = new ChunkPreloader(level, segment.sectionCount(), index -> segment.chunkKey(last - index), ticketOwner, preloadChunks);
+            preloader.update(0);
+        }
+    }
+
+    private void prefetch() {
+        if (nextSegmentIndex >= 0) {
+            nextSegment = journal.readSegment(nextSegmentIndex--);
+        }
+    }
+}
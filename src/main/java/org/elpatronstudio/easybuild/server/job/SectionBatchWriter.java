@@ -0,0 +1,160 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.lighting.LevelLightEngine;
+
+/**
+ * Writes a tick's worth of placements straight into chunk section palettes.
+ * <p>
+ * Heightmaps, lighting and POIs are kept in sync per block, while client sync is grouped per section: every touched
+ * section is sent to watching players as a single section update packet when the batch is flushed. Placements whose old
+ * or new state carries a block entity fall back to {@link ServerLevel#setBlock} with the executor's update flags so
+ * block entity lifecycle stays vanilla. When an {@link UndoJournal} is attached, every replaced state is recorded.
+ */
+final class SectionBatchWriter {
+
+    private static final Heightmap.Types[] TRACKED_HEIGHTMAPS = {
+            Heightmap.Types.MOTION_BLOCKING,
+            Heightmap.Types.MOTION_BLOCKING_NO_LEAVES,
+            Heightmap.Types.OCEAN_FLOOR,
+            Heightmap.Types.WORLD_SURFACE
+    };
+
+    private final ServerLevel level;
+    private final int fallbackFlags;
+    private final UndoJournal journal;
+    private final Long2ObjectLinkedOpenHashMap<TouchedSection> touched = new Long2ObjectLinkedOpenHashMap<>();
+    private TouchedSection lastSection;
+
+    SectionBatchWriter(ServerLevel level, int fallbackFlags, UndoJournal journal) {
+        this.level = level;
+        this.fallbackFlags = fallbackFlags;
+        this.journal = journal;
+    }
+
+    /**
+     * Writes a single placement and returns whether the block actually changed.
+     */
+    boolean write(BlockPlacement placement) {
+        return write(placement.position(), placement.state());
+    }
+
+    boolean write(BlockPos pos, BlockState state) {
+        TouchedSection target = sectionFor(pos);
+        if (target == null) {
+            return false;
+        }
+
+        int localX = pos.getX() & 15;
+        int localY = pos.getY() & 15;
+        int localZ = pos.getZ() & 15;
+        LevelChunkSection section = target.section;
+        BlockState previous = section.getBlockState(localX, localY, localZ);
+        if (previous == state) {
+            return false;
+        }
+
+        if (previous.hasBlockEntity() || state.hasBlockEntity()) {
+            // Journaled first so the block entity data is captured before setBlock removes it
+            if (journal != null) {
+                journal.record(pos, previous);
+            }
+            return level.setBlock(pos, state, fallbackFlags);
+        }
+
+        if (journal != null) {
+            journal.record(pos, previous);
+        }
+
+        LevelLightEngine lightEngine = level.getChunkSource().getLightEngine();
+        boolean wasEmpty = section.hasOnlyAir();
+        section.setBlockState(localX, localY, localZ, state, false);
+        boolean isEmpty = section.hasOnlyAir();
+        if (wasEmpty != isEmpty) {
+            lightEngine.updateSectionStatus(pos, isEmpty);
+        }
+
+        LevelChunk chunk = target.chunk;
+        for (Heightmap.Types type : TRACKED_HEIGHTMAPS) {
+            chunk.getOrCreateHeightmapUnprimed(type).update(localX, pos.getY(), localZ, state);
+        }
+        chunk.getSkyLightSources().update(chunk, localX, pos.getY(), localZ);
+        lightEngine.checkBlock(pos);
+        level.onBlockStateChange(pos, previous, state);
+
+        target.changedPositions.add(SectionPos.sectionRelativePos(pos));
+        return true;
+    }
+
+    /**
+     * Marks touched chunks dirty and sends one section update packet per touched section.
+     */
+    void flush() {
+        if (touched.isEmpty()) {
+            return;
+        }
+
+        for (TouchedSection target : touched.values()) {
+            if (target.changedPositions.isEmpty()) {
+                continue;
+            }
+            target.chunk.markUnsaved();
+            broadcast(target.chunk.getPos(), new ClientboundSectionBlocksUpdatePacket(target.sectionPos, target.changedPositions, target.section));
+        }
+        touched.clear();
+        lastSection = null;
+    }
+
+    private TouchedSection sectionFor(BlockPos pos) {
+        long sectionKey = SectionPos.asLong(pos);
+        if (lastSection != null && lastSection.sectionKey == sectionKey) {
+            return lastSection;
+        }
+
+        TouchedSection target = touched.get(sectionKey);
+        if (target == null) {
+            LevelChunk chunk = level.getChunkAt(pos);
+            int sectionIndex = chunk.getSectionIndex(pos.getY());
+            if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) {
+                return null;
+            }
+            target = new TouchedSection(sectionKey, SectionPos.of(pos), chunk, chunk.getSection(sectionIndex));
+            touched.put(sectionKey, target);
+        }
+        lastSection = target;
+        return target;
+    }
+
+    private void broadcast(ChunkPos chunkPos, ClientboundSectionBlocksUpdatePacket packet) {
+        for (ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(chunkPos, false)) {
+            player.connection.send(packet);
+        }
+    }
+
+    private static final class TouchedSection {
+        private final long sectionKey;
+        private final SectionPos sectionPos;
+        private final LevelChunk chunk;
+        private final LevelChunkSection section;
+        private final ShortSet changedPositions = new ShortOpenHashSet();
+
+        private TouchedSection(long sectionKey, SectionPos sectionPos, LevelChunk chunk, LevelChunkSection section) {
+            this.sectionKey = sectionKey;
+            this.sectionPos = sectionPos;
+            this.chunk = chunk;
+            this.section = section;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.Objects;
+
+/**
+ * Set of chunk sections a plan actually touches, stored as one occupancy bitmap per chunk column.
+ * <p>
+ * Each column keeps four words covering section Y -128..127, which spans every legal build height. Two footprints
+ * intersect only if a shared column has a common bit, so L-shaped or sparse builds do not block their whole bounding box.
+ */
+public final class SectionFootprint {
+
+    private static final int MIN_SECTION_Y = -128;
+    private static final int MAX_SECTION_Y = 127;
+    private static final int WORDS = 4;
+
+    private final Long2ObjectOpenHashMap<long[]> columns;
+    private final int sectionCount;
+
+    private SectionFootprint(Long2ObjectOpenHashMap<long[]> columns) {
+        this.columns = columns;
+        int count = 0;
+        for (long[] bits : columns.values()) {
+            for (long word : bits) {
+                count += Long.bitCount(word);
+            }
+        }
+        this.sectionCount = count;
+    }
+
+    public static SectionFootprint of(Iterable<BlockPlacement> placements) {
+        Long2ObjectOpenHashMap<long[]> columns = new Long2ObjectOpenHashMap<>();
+        long lastKey = Long.MIN_VALUE;
+        long[] lastBits = null;
+        for (BlockPlacement placement : placements) {
+            BlockPos pos = placement.position();
+            long key = ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4);
+            if (lastBits == null || key != lastKey) {
+                lastBits = columns.computeIfAbsent(key, ignored -> new long[WORDS]);
+                lastKey = key;
+            }
+            set(lastBits, pos.getY() >> 4);
+        }
+        return new SectionFootprint(columns);
+    }
+
+    /**
+     * Footprint covering every section of {@code region}.
+     */
+    public static SectionFootprint of(BlockRegion region) {
+        Objects.requireNonNull(region, "region");
+        Long2ObjectOpenHashMap<long[]> columns = new Long2ObjectOpenHashMap<>();
+        for (int chunkX = region.minX() >> 4; chunkX <= region.maxX() >> 4; chunkX++) {
+            for (int chunkZ = region.minZ() >> 4; chunkZ <= region.maxZ() >> 4; chunkZ++) {
+                long[] bits = new long[WORDS];
+                for (int sectionY = region.minY() >> 4; sectionY <= region.maxY() >> 4; sectionY++) {
+                    set(bits, sectionY);
+                }
+                columns.put(ChunkPos.asLong(chunkX, chunkZ), bits);
+            }
+        }
+        return new SectionFootprint(columns);
+    }
+
+    public boolean intersects(SectionFootprint other) {
+        Objects.requireNonNull(other, "other");
+        SectionFootprint smaller = columns.size() <= other.columns.size() ? this : other;
+        SectionFootprint larger = smaller == this ? other : this;
+        for (Long2ObjectMap.Entry<long[]> entry : smaller.columns.long2ObjectEntrySet()) {
+            long[] theirs = larger.columns.get(entry.getLongKey());
+            if (theirs == null) {
+                continue;
+            }
+            long[] ours = entry.getValue();
+            for (int i = 0; i < WORDS; i++) {
+                if ((ours[i] & theirs[i]) != 0L) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Chunk columns (as {@link ChunkPos#asLong}) containing at least one touched section.
+     */
+    public LongSet columns() {
+        return LongSets.unmodifiable(columns.keySet());
+    }
+
+    public int sectionCount() {
+        return sectionCount;
+    }
+
+    private static void set(long[] bits, int sectionY) {
+        int index = Math.max(MIN_SECTION_Y, Math.min(MAX_SECTION_Y, sectionY)) - MIN_SECTION_Y;
+        bits[index >>> 6] |= 1L << (index & 63);
+    }
+}
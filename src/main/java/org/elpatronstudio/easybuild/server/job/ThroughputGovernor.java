@@ -0,0 +1,123 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.mojang.logging.LogUtils;
+import net.minecraft.server.MinecraftServer;
+import org.elpatronstudio.esaybuildauto.Config;
+import org.slf4j.Logger;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feedback controller that sizes build job throughput from the server's recent tick time.
+ * <p>
+ * Once per server tick the smoothed MSPT is compared against {@code server.jobs.targetMspt}. Below the target the
+ * throughput scale grows step by step, above it the scale shrinks multiplicatively. The time jobs spent placing is
+ * tracked separately, so the tick budget never exceeds the headroom left by the rest of the server. Once MSPT reaches
+ * {@code server.jobs.pauseMspt} and backing off cannot help any more, jobs are paused until MSPT drops below the target.
+ */
+final class ThroughputGovernor {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final double MIN_SCALE = 0.1;
+    private static final double MAX_SCALE = 8.0;
+    private static final double INCREASE_FACTOR = 1.05;
+    private static final double DECREASE_FACTOR = 0.8;
+    private static final double HEADROOM_RATIO = 0.9;
+    private static final double PLACEMENT_SMOOTHING = 0.2;
+    private static final long MIN_BUDGET_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+    private static final int MAX_SCALED_BLOCKS_PER_TICK = 16_384;
+
+    private double scale = 1.0;
+    private double placementMs;
+    private double baselineMs;
+    private double mspt;
+    private long placementNanosThisTick;
+    private boolean paused;
+
+    /**
+     * Adds time spent in {@link BlockPlacementExecutor#tick(long, int)} during the current server tick.
+     */
+    void recordPlacement(long nanos) {
+        placementNanosThisTick += nanos;
+    }
+
+    /**
+     * Re-evaluates scale and pause state; called once at the end of every server tick.
+     */
+    void update(MinecraftServer server) {
+        long tickPlacementNanos = placementNanosThisTick;
+        placementNanosThisTick = 0L;
+        if (!Config.serverJobsAdaptiveThroughput) {
+            scale = 1.0;
+            paused = false;
+            return;
+        }
+
+        mspt = server.getCurrentSmoothedTickTime();
+        placementMs += (tickPlacementNanos / 1_000_000.0 - placementMs) * PLACEMENT_SMOOTHING;
+        baselineMs = Math.max(0.0, mspt - placementMs);
+
+        double target = Config.serverJobsTargetMspt;
+        double pauseAt = Math.max(target, Config.serverJobsPauseMspt);
+        if (paused) {
+            if (mspt < target) {
+                paused = false;
+                LOGGER.info("Resuming build jobs, MSPT back at {}", formatMs(mspt));
+            }
+            return;
+        }
+
+        if (mspt > target) {
+            scale = Math.max(MIN_SCALE, scale * DECREASE_FACTOR);
+        } else if (mspt < target * HEADROOM_RATIO) {
+            scale = Math.min(MAX_SCALE, scale * INCREASE_FACTOR);
+        }
+
+        if (mspt >= pauseAt && (scale <= MIN_SCALE || baselineMs >= target)) {
+            paused = true;
+            LOGGER.info("Pausing build jobs, MSPT at {} ({} outside of EasyBuild)", formatMs(mspt), formatMs(baselineMs));
+        }
+    }
+
+    boolean paused() {
+        return paused;
+    }
+
+    double scale() {
+        return scale;
+    }
+
+    double mspt() {
+        return mspt;
+    }
+
+    /**
+     * Time budget for one server tick, shared by all levels: the configured budget times the current scale, capped by
+     * the headroom below the target.
+     */
+    long budgetNanos(int configuredMs) {
+        long configured = TimeUnit.MILLISECONDS.toNanos(Math.max(1, configuredMs));
+        if (!Config.serverJobsAdaptiveThroughput) {
+            return configured;
+        }
+        long scaled = (long) (configured * scale);
+        long headroom = (long) ((Config.serverJobsTargetMspt - baselineMs) * 1_000_000.0);
+        return Math.max(MIN_BUDGET_NANOS, Math.min(scaled, headroom));
+    }
+
+    /**
+     * Block limit for one executor tick, derived from the job's own {@code blocksPerTick} and the current scale.
+     */
+    int blockLimit(int blocksPerTick) {
+        if (blocksPerTick == Integer.MAX_VALUE || !Config.serverJobsAdaptiveThroughput) {
+            return blocksPerTick;
+        }
+        long scaled = Math.round(blocksPerTick * scale);
+        return (int) Math.max(1L, Math.min(Math.max(blocksPerTick, MAX_SCALED_BLOCKS_PER_TICK), scaled));
+    }
+
+    private static String formatMs(double millis) {
+        return String.format(Locale.ROOT, "%.1f ms", millis);
+    }
+}
@@ -0,0 +1,353 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import com.mojang.logging.LogUtils;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtAccounter;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.storage.LevelResource;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Records the block states a job replaces so the job can be rolled back.
+ * <p>
+ * Entries are grouped per chunk section with a section-local palette, so each replaced block costs a single int
+ * ({@code localIndex << 12 | paletteIndex}). Once {@link #SPILL_THRESHOLD} entries are buffered, the buffer is
+ * encoded as a compressed NBT segment and written to {@code easybuild/journal/<jobId>/} on the storage thread of
+ * {@link JobCheckpointStore}. Checkpoints and rollback {@link #flush()} the buffer first, so segments on disk are the
+ * complete journal and a restarted server can {@link #resume(long)} it. Replaced block entities are journaled with
+ * their full data next to their entry, so a rollback restores container contents, signs and spawners as well.
+ */
+final class UndoJournal {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int SPILL_THRESHOLD = 32_768;
+    private static final int LOCAL_INDEX_SHIFT = 12;
+    private static final int PALETTE_MASK = (1 << LOCAL_INDEX_SHIFT) - 1;
+
+    private final ServerLevel level;
+    private final Path directory;
+    private final HolderLookup<Block> blockLookup;
+    private final Long2ObjectLinkedOpenHashMap<SectionEntries> buffer = new Long2ObjectLinkedOpenHashMap<>();
+    private SectionEntries lastSection;
+    private int buffered;
+    private int spilledSegments;
+    private long recorded;
+
+    UndoJournal(ServerLevel level, String jobId) {
+        this.level = level;
+        this.directory = level.getServer().getWorldPath(LevelResource.ROOT).resolve("easybuild").resolve("journal").resolve(jobId);
+        this.blockLookup = level.registryAccess().lookupOrThrow(Registries.BLOCK);
+    }
+
+    /**
+     * Remembers {@code previous} as the state to restore at {@code pos}, together with the data of the block entity
+     * there. Must be called before the block or its block entity data is replaced.
+     */
+    void record(BlockPos pos, BlockState previous) {
+        CompoundTag blockEntityData = null;
+        if (previous.hasBlockEntity()) {
+            BlockEntity blockEntity = level.getBlockEntity(pos);
+            if (blockEntity != null) {
+                blockEntityData = blockEntity.saveWithFullMetadata(level.registryAccess());
+            }
+        }
+
+        long sectionKey = SectionPos.asLong(pos);
+        SectionEntries section = lastSection;
+        if (section == null || section.sectionKey != sectionKey) {
+            section = buffer.get(sectionKey);
+            if (section == null) {
+                section = new SectionEntries(sectionKey);
+                buffer.put(sectionKey, section);
+            }
+            lastSection = section;
+        }
+        section.add(SectionPos.sectionRelativePos(pos), previous, blockEntityData);
+        recorded++;
+        if (++buffered >= SPILL_THRESHOLD) {
+            spill();
+        }
+    }
+
+    long recorded() {
+        return recorded;
+    }
+
+    boolean isEmpty() {
+        return recorded == 0L;
+    }
+
+    int spilledSegments() {
+        return spilledSegments;
+    }
+
+    /**
+     * Spills buffered entries so every recorded entry is on disk once pending writes finish.
+     */
+    void flush() {
+        if (buffered > 0) {
+            spill();
+        }
+    }
+
+    /**
+     * Picks up segments left on disk by a previous server run; {@code recordedEntries} comes from the job's checkpoint.
+     */
+    void resume(long recordedEntries) {
+        int segments = 0;
+        while (Files.isRegularFile(segmentFile(segments))) {
+            segments++;
+        }
+        spilledSegments = segments;
+        recorded = Math.max(recorded, recordedEntries);
+    }
+
+    /**
+     * Reads a spilled segment on the storage thread, which runs it after all earlier writes.
+     */
+    CompletableFuture<Segment> readSegment(int index) {
+        Path file = segmentFile(index);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Segment.fromTag(NbtIo.readCompressed(file, NbtAccounter.unlimitedHeap()), blockLookup);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, JobCheckpointStore.IO);
+    }
+
+    /**
+     * Deletes a segment that has been restored, so a resumed rollback does not replay it again.
+     */
+    void dropSegment(int index) {
+        Path file = segmentFile(index);
+        JobCheckpointStore.IO.execute(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to delete undo journal segment {}", file, ex);
+            }
+        });
+    }
+
+    /**
+     * Drops buffered entries and deletes spilled segments after pending writes.
+     */
+    void discard() {
+        buffer.clear();
+        lastSection = null;
+        buffered = 0;
+        JobCheckpointStore.IO.execute(() -> JobCheckpointStore.deleteDirectory(directory));
+    }
+
+    private void spill() {
+        Segment segment = drain();
+        Path file = segmentFile(spilledSegments++);
+        CompoundTag tag = segment.toTag();
+        JobCheckpointStore.IO.execute(() -> {
+            try {
+                JobCheckpointStore.writeCompressed(tag, file);
+            } catch (UncheckedIOException ex) {
+                LOGGER.error("Failed to write undo journal segment {}", file, ex);
+            }
+        });
+    }
+
+    private Segment drain() {
+        List<SectionEntries> sections = new ArrayList<>(buffer.values());
+        buffer.clear();
+        lastSection = null;
+        buffered = 0;
+        return Segment.of(sections);
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve("segment-" + index + ".dat");
+    }
+
+    private static final class SectionEntries {
+        private final long sectionKey;
+        private final List<BlockState> palette = new ArrayList<>();
+        private final Reference2IntOpenHashMap<BlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+        private final IntArrayList entries = new IntArrayList();
+        private final Int2ObjectOpenHashMap<CompoundTag> blockEntities = new Int2ObjectOpenHashMap<>();
+
+        private SectionEntries(long sectionKey) {
+            this.sectionKey = sectionKey;
+            this.paletteIndex.defaultReturnValue(-1);
+        }
+
+        private void add(short localIndex, BlockState state, CompoundTag blockEntityData) {
+            int index = paletteIndex.getInt(state);
+            if (index < 0) {
+                index = palette.size();
+                palette.add(state);
+                paletteIndex.put(state, index);
+            }
+            if (blockEntityData != null) {
+                blockEntities.put(entries.size(), blockEntityData);
+            }
+            entries.add((localIndex << LOCAL_INDEX_SHIFT) | index);
+        }
+    }
+
+    /**
+     * An immutable batch of journal entries grouped by section; recording order is kept within each section. Block
+     * entity data is keyed by {@link #blockEntityKey(int, int)}.
+     */
+    static final class Segment {
+        private final long[] sectionKeys;
+        private final BlockState[][] palettes;
+        private final int[][] entries;
+        private final Long2ObjectOpenHashMap<CompoundTag> blockEntities;
+
+        private Segment(long[] sectionKeys, BlockState[][] palettes, int[][] entries, Long2ObjectOpenHashMap<CompoundTag> blockEntities) {
+            this.sectionKeys = sectionKeys;
+            this.palettes = palettes;
+            this.entries = entries;
+            this.blockEntities = blockEntities;
+        }
+
+        private static Segment of(List<SectionEntries> sections) {
+            int count = sections.size();
+            long[] keys = new long[count];
+            BlockState[][] palettes = new BlockState[count][];
+            int[][] entries = new int[count][];
+            Long2ObjectOpenHashMap<CompoundTag> blockEntities = new Long2ObjectOpenHashMap<>();
+            for (int i = 0; i < count; i++) {
+                SectionEntries section = sections.get(i);
+                keys[i] = section.sectionKey;
+                palettes[i] = section.palette.toArray(new BlockState[0]);
+                entries[i] = section.entries.toIntArray();
+                for (Int2ObjectMap.Entry<CompoundTag> blockEntity : section.blockEntities.int2ObjectEntrySet()) {
+                    blockEntities.put(blockEntityKey(i, blockEntity.getIntKey()), blockEntity.getValue());
+                }
+            }
+            return new Segment(keys, palettes, entries, blockEntities);
+        }
+
+        private static long blockEntityKey(int section, int entry) {
+            return (long) section << 32 | (entry & 0xFFFFFFFFL);
+        }
+
+        private CompoundTag toTag() {
+            ListTag sections = new ListTag();
+            for (int i = 0; i < sectionKeys.length; i++) {
+                CompoundTag section = new CompoundTag();
+                section.putLong("Section", sectionKeys[i]);
+                ListTag palette = new ListTag();
+                for (BlockState state : palettes[i]) {
+                    palette.add(NbtUtils.writeBlockState(state));
+                }
+                section.put("Palette", palette);
+                section.putIntArray("Entries", entries[i]);
+                ListTag sectionBlockEntities = new ListTag();
+                for (int entry = 0; entry < entries[i].length; entry++) {
+                    CompoundTag data = blockEntities.get(blockEntityKey(i, entry));
+                    if (data != null) {
+                        CompoundTag blockEntity = new CompoundTag();
+                        blockEntity.putInt("Entry", entry);
+                        blockEntity.put("Tag", data);
+                        sectionBlockEntities.add(blockEntity);
+                    }
+                }
+                if (!sectionBlockEntities.isEmpty()) {
+                    section.put("BlockEntities", sectionBlockEntities);
+                }
+                sections.add(section);
+            }
+            CompoundTag root = new CompoundTag();
+            root.put("Sections", sections);
+            return root;
+        }
+
+        private static Segment fromTag(CompoundTag root, HolderLookup<Block> blockLookup) {
+            ListTag sections = root.getListOrEmpty("Sections");
+            int count = sections.size();
+            long[] keys = new long[count];
+            BlockState[][] palettes = new BlockState[count][];
+            int[][] entries = new int[count][];
+            Long2ObjectOpenHashMap<CompoundTag> blockEntities = new Long2ObjectOpenHashMap<>();
+            for (int i = 0; i < count; i++) {
+                CompoundTag section = sections.getCompoundOrEmpty(i);
+                keys[i] = section.getLongOr("Section", 0L);
+                ListTag palette = section.getListOrEmpty("Palette");
+                palettes[i] = new BlockState[palette.size()];
+                for (int p = 0; p < palette.size(); p++) {
+                    palettes[i][p] = NbtUtils.readBlockState(blockLookup, palette.getCompoundOrEmpty(p));
+                }
+                entries[i] = section.getIntArray("Entries").orElse(new int[0]);
+                ListTag sectionBlockEntities = section.getListOrEmpty("BlockEntities");
+                for (int b = 0; b < sectionBlockEntities.size(); b++) {
+                    CompoundTag blockEntity = sectionBlockEntities.getCompoundOrEmpty(b);
+                    int entry = blockEntity.getIntOr("Entry", -1);
+                    if (entry >= 0 && entry < entries[i].length) {
+                        blockEntities.put(blockEntityKey(i, entry), blockEntity.getCompoundOrEmpty("Tag"));
+                    }
+                }
+            }
+            return new Segment(keys, palettes, entries, blockEntities);
+        }
+
+        int sectionCount() {
+            return sectionKeys.length;
+        }
+
+        int entryCount(int section) {
+            return entries[section].length;
+        }
+
+        int entryCount() {
+            int count = 0;
+            for (int[] section : entries) {
+                count += section.length;
+            }
+            return count;
+        }
+
+        long chunkKey(int section) {
+            return ChunkPos.asLong(SectionPos.x(sectionKeys[section]), SectionPos.z(sectionKeys[section]));
+        }
+
+        BlockPos position(int section, int entry) {
+            int local = entries[section][entry] >>> LOCAL_INDEX_SHIFT;
+            return SectionPos.of(sectionKeys[section]).relativeToBlockPos((short) local);
+        }
+
+        BlockState state(int section, int entry) {
+            return palettes[section][entries[section][entry] & PALETTE_MASK];
+        }
+
+        /**
+         * Data of the block entity replaced by this entry, or {@code null} if there was none.
+         */
+        CompoundTag blockEntity(int section, int entry) {
+            return blockEntities.get(blockEntityKey(section, entry));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.elpatronstudio.easybuild.server.job;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.List;
+
+/**
+ * Compares the plan with the world just ahead of the executor cursor and only hands out placements that change a block.
+ * <p>
+ * Each chunk is looked up once per consecutive run of placements. Placements that already match are counted as
+ * {@link #unchanged()} so progress and ETA reflect the real remaining work. Placements carrying block entity data
+ * always count as changed, since comparing the state says nothing about a container's contents.
+ */
+final class WorldDiffStage {
+
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private final ServerLevel level;
+    private final List<BlockPlacement> placements;
+    private final DeferredUpdatePass deferredUpdates;
+    private final BlockEntityStage blockEntities;
+    private final IntArrayFIFOQueue pending = new IntArrayFIFOQueue();
+    private int scanCursor;
+    private int replayEnd;
+    private int unchanged;
+    private BlockPos blockedAt;
+    private long cachedChunkKey;
+    private LevelChunk cachedChunk;
+
+    WorldDiffStage(ServerLevel level, List<BlockPlacement> placements, DeferredUpdatePass deferredUpdates,
+                   BlockEntityStage blockEntities) {
+        this.level = level;
+        this.placements = placements;
+        this.deferredUpdates = deferredUpdates;
+        this.blockEntities = blockEntities;
+    }
+
+    /**
+     * Scans forward until {@code wanted} differing placements are pending, {@code maxScanned} placements were inspected,
+     * the deadline passed or an unloaded chunk is reached (see {@link #blockedAt()}).
+     */
+    void scan(int wanted, int maxScanned, long deadlineNanos, boolean enforceDeadline) {
+        blockedAt = null;
+        cachedChunk = null;
+        int scanned = 0;
+        while (scanCursor < placements.size() && pending.size() < wanted && scanned < maxScanned) {
+            if (enforceDeadline && scanned > 0 && scanned % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos >= 0) {
+                return;
+            }
+            BlockPlacement placement = placements.get(scanCursor);
+            BlockPos pos = placement.position();
+            LevelChunk chunk = chunkFor(pos);
+            if (chunk == null) {
+                blockedAt = pos;
+                return;
+            }
+
+            if (placement.blockEntityTag() == null && chunk.getBlockState(pos) == placement.state()) {
+                // Before the resume cursor a match is most likely our own write, already counted in the checkpoint
+                boolean replayed = scanCursor < replayEnd;
+                if (!replayed) {
+                    unchanged++;
+                }
+                if (deferredUpdates != null) {
+                    deferredUpdates.record(scanCursor, replayed);
+                }
+                if (blockEntities != null) {
+                    blockEntities.record(scanCursor, false);
+                }
+            } else {
+                pending.enqueue(scanCursor);
+            }
+            scanCursor++;
+            scanned++;
+        }
+    }
+
+    /**
+     * Starts scanning at {@code from} when resuming a job whose writes had reached {@code cursor}. Placements before
+     * {@code from} are reported to the deferred update pass and the block entity stage as untouched. Placements between
+     * the two are scanned again so their block entity data and deferred updates are redone; matches there are already
+     * covered by the checkpoint's {@code unchangedBefore} and placed counts and are not counted again.
+     */
+    void skipTo(int from, int cursor, int unchangedBefore) {
+        int target = Math.min(from, placements.size());
+        for (int i = scanCursor; i < target; i++) {
+            if (deferredUpdates != null) {
+                deferredUpdates.record(i, false);
+            }
+            if (blockEntities != null) {
+                blockEntities.record(i, false);
+            }
+        }
+        scanCursor = Math.max(scanCursor, target);
+        replayEnd = Math.min(Math.max(cursor, scanCursor), placements.size());
+        unchanged = unchangedBefore;
+    }
+
+    /**
+     * Whether {@code index} lies before the cursor a resumed job was checkpointed at, so writing it is not new progress.
+     */
+    boolean isReplay(int index) {
+        return index < replayEnd;
+    }
+
+    int replayEnd() {
+        return replayEnd;
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    int nextPending() {
+        return pending.dequeueInt();
+    }
+
+    /**
+     * Lowest plan index that has not been written yet.
+     */
+    int lowestOutstanding() {
+        return pending.isEmpty() ? scanCursor : pending.firstInt();
+    }
+
+    boolean isExhausted() {
+        return scanCursor >= placements.size() && pending.isEmpty();
+    }
+
+    BlockPos blockedAt() {
+        return blockedAt;
+    }
+
+    int scanned() {
+        return scanCursor;
+    }
+
+    int unchanged() {
+        return unchanged;
+    }
+
+    private LevelChunk chunkFor(BlockPos pos) {
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        if (cachedChunk == null || cachedChunkKey != key) {
+            cachedChunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+            cachedChunkKey = key;
+        }
+        return cachedChunk;
+    }
+}
@@ -5,6 +5,8 @@ import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.profiling.Profiler;
+import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.Container;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.item.ItemStack;
@@ -15,6 +17,7 @@ import org.elpatronstudio.easybuild.core.network.EasyBuildPacketSender;
 import org.elpatronstudio.easybuild.core.network.packet.ClientboundMaterialCheckResponse;
 import org.elpatronstudio.easybuild.core.network.packet.ClientboundMissingMaterials;
 import org.elpatronstudio.easybuild.core.network.packet.ServerboundMaterialCheckRequest;
+import org.elpatronstudio.easybuild.server.diagnostics.MaterialCheckEvent;
 import org.elpatronstudio.easybuild.server.security.RequestSecurityManager;
 
 import java.util.ArrayList;
@@ -107,7 +110,32 @@ public final class MaterialCheckService {
         }
     }
 
+    /**
+     * Runs the check as a {@link MaterialCheckEvent} and an {@code easybuild_material_check} profiler section.
+     */
     private MaterialCheckResult evaluate(ServerLevel level, ServerPlayer player, ServerboundMaterialCheckRequest request) {
+        MaterialCheckEvent event = new MaterialCheckEvent();
+        event.begin();
+        ProfilerFiller profiler = Profiler.get();
+        profiler.push("easybuild_material_check");
+        MaterialCheckResult result = null;
+        try {
+            result = countMaterials(level, player, request);
+            return result;
+        } finally {
+            profiler.pop();
+            if (event.shouldCommit()) {
+                event.player = player.getGameProfile().name();
+                event.schematic = request.schematic().schematicId();
+                event.requiredItems = request.clientEstimate().size();
+                event.containers = request.chests().size();
+                event.missingItems = result != null ? result.missing().size() : 0;
+                event.commit();
+            }
+        }
+    }
+
+    private MaterialCheckResult countMaterials(ServerLevel level, ServerPlayer player, ServerboundMaterialCheckRequest request) {
         if (request.clientEstimate().isEmpty()) {
             return new MaterialCheckResult(true, List.of());
         }
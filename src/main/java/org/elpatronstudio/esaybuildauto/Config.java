@@ -4,10 +4,13 @@ import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.neoforge.common.ModConfigSpec;
 import net.neoforged.neoforge.common.ModConfigSpec.DoubleValue;
 import org.elpatronstudio.easybuild.core.model.PasteMode;
+import org.elpatronstudio.easybuild.server.job.JobSchedulingPolicy;
 
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -32,6 +35,21 @@ public class Config {
     private static final ModConfigSpec.ConfigValue<List<? extends String>> SERVER_INSTA_BUILD_ALLOWED_TEAMS;
     private static final ModConfigSpec.ConfigValue<List<? extends String>> SERVER_INSTA_BUILD_ALLOWED_TAGS;
     private static final ModConfigSpec.BooleanValue SERVER_INSTA_BUILD_AUDIT_LOG;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_MAX_CONCURRENT;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_TICK_BUDGET_MS;
+    private static final ModConfigSpec.EnumValue<JobSchedulingPolicy> SERVER_JOBS_SCHEDULING_POLICY;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_PRELOAD_CHUNKS;
+    private static final ModConfigSpec.BooleanValue SERVER_JOBS_ADAPTIVE_THROUGHPUT;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_TARGET_MSPT;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_PAUSE_MSPT;
+    private static final ModConfigSpec.BooleanValue SERVER_JOBS_ROLLBACK_ON_FAILURE;
+    private static final ModConfigSpec.BooleanValue SERVER_JOBS_ROLLBACK_ON_CANCEL;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_CHECKPOINT_INTERVAL_TICKS;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_PLAN_CACHE_MB;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_PROGRESS_INTERVAL_TICKS;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_PROGRESS_PERCENT_STEP;
+    private static final ModConfigSpec.IntValue SERVER_JOBS_QUEUE_AGING_SECONDS;
+    private static final ModConfigSpec.ConfigValue<List<? extends String>> SERVER_JOBS_PLAYER_WEIGHTS;
 
     public static final ModConfigSpec SPEC;
 
@@ -53,6 +71,22 @@ public class Config {
     public static Set<String> serverInstaBuildAllowedTeams = Set.of();
     public static Set<String> serverInstaBuildAllowedTags = Set.of();
     public static boolean serverInstaBuildAuditLog;
+    public static int serverJobsMaxConcurrent = 4;
+    public static int serverJobsTickBudgetMs = 10;
+    public static JobSchedulingPolicy serverJobsSchedulingPolicy = JobSchedulingPolicy.ROUND_ROBIN;
+    public static int serverJobsPreloadChunks = 16;
+    public static boolean serverJobsAdaptiveThroughput = true;
+    public static int serverJobsTargetMspt = 40;
+    public static int serverJobsPauseMspt = 48;
+    public static boolean serverJobsRollbackOnFailure = true;
+    public static boolean serverJobsRollbackOnCancel = false;
+    public static int serverJobsCheckpointIntervalTicks = 100;
+    public static int serverJobsPlanCacheMb = 64;
+    public static int serverJobsProgressIntervalTicks = 10;
+    public static int serverJobsProgressPercentStep = 5;
+    public static int serverJobsQueueAgingSeconds = 30;
+    public static Map<UUID, Double> serverJobsPlayerWeightsByUuid = Map.of();
+    public static Map<String, Double> serverJobsPlayerWeightsByName = Map.of();
 
     static {
         BUILDER.comment("Client settings").push("client");
@@ -132,6 +166,70 @@ public class Config {
                 .comment("Write Insta-Build permission decisions to easybuild/insta_build_audit.log inside the world save.")
                 .define("auditLog", true);
 
+        BUILDER.pop();
+
+        BUILDER.comment("Server build job scheduling").push("jobs");
+
+        SERVER_JOBS_MAX_CONCURRENT = BUILDER
+                .comment("Maximum number of build jobs per dimension that place blocks at the same time. Further jobs wait in that dimension's queue.")
+                .defineInRange("maxConcurrentJobs", 4, 1, 64);
+
+        SERVER_JOBS_TICK_BUDGET_MS = BUILDER
+                .comment("Milliseconds per server tick shared by all running build jobs; split evenly across dimensions with running jobs.")
+                .defineInRange("tickBudgetMs", 10, 1, 50);
+
+        SERVER_JOBS_SCHEDULING_POLICY = BUILDER
+                .comment("How the tick budget is split across running jobs: ROUND_ROBIN (equal slices) or WEIGHTED (proportional to each job's blocks per tick).")
+                .defineEnum("schedulingPolicy", JobSchedulingPolicy.ROUND_ROBIN);
+
+        SERVER_JOBS_PRELOAD_CHUNKS = BUILDER
+                .comment("Maximum number of chunks each running job keeps force-loaded ahead of its cursor. 0 disables preloading.")
+                .defineInRange("preloadChunks", 16, 0, 256);
+
+        SERVER_JOBS_ADAPTIVE_THROUGHPUT = BUILDER
+                .comment("Scale the tick budget and blocks per tick of running jobs with the server's average tick time (MSPT).")
+                .define("adaptiveThroughput", true);
+
+        SERVER_JOBS_TARGET_MSPT = BUILDER
+                .comment("MSPT the adaptive governor aims for. Below it jobs speed up, above it they back off.")
+                .defineInRange("targetMspt", 40, 10, 50);
+
+        SERVER_JOBS_PAUSE_MSPT = BUILDER
+                .comment("MSPT at which running jobs are paused until the server recovers below targetMspt.")
+                .defineInRange("pauseMspt", 48, 20, 200);
+
+        SERVER_JOBS_ROLLBACK_ON_FAILURE = BUILDER
+                .comment("Restore the blocks a job replaced when it fails while placing.")
+                .define("rollbackOnFailure", true);
+
+        SERVER_JOBS_ROLLBACK_ON_CANCEL = BUILDER
+                .comment("Restore the blocks a job replaced when its owner cancels it.")
+                .define("rollbackOnCancel", false);
+
+        SERVER_JOBS_CHECKPOINT_INTERVAL_TICKS = BUILDER
+                .comment("Ticks between progress checkpoints of running jobs. Jobs resume from their last checkpoint after a restart.")
+                .defineInRange("checkpointIntervalTicks", 100, 20, 6000);
+
+        SERVER_JOBS_PLAN_CACHE_MB = BUILDER
+                .comment("Approximate heap size in MB for cached schematic plans, reused when the same schematic is pasted again. 0 disables the cache.")
+                .defineInRange("planCacheMb", 64, 0, 4096);
+
+        SERVER_JOBS_PROGRESS_INTERVAL_TICKS = BUILDER
+                .comment("Minimum ticks between progress updates sent to a job's owner. Phase changes are always sent immediately.")
+                .defineInRange("progressIntervalTicks", 10, 1, 1200);
+
+        SERVER_JOBS_PROGRESS_PERCENT_STEP = BUILDER
+                .comment("Also send a progress update whenever a job crosses a multiple of this percentage. 0 disables percent-based updates.")
+                .defineInRange("progressPercentStep", 5, 0, 100);
+
+        SERVER_JOBS_QUEUE_AGING_SECONDS = BUILDER
+                .comment("Queued jobs start shortest-first. Every this many seconds of waiting halves a job's effective size, so large jobs are never starved.")
+                .defineInRange("queueAgingSeconds", 30, 1, 3600);
+
+        SERVER_JOBS_PLAYER_WEIGHTS = BUILDER
+                .comment("Queue priority weights as 'player=weight' (name or UUID). A weight of 2 lets a player's jobs queue as if they were half as large. Default weight is 1.")
+                .defineListAllowEmpty("playerWeights", List.of(), Config::validatePlayerWeight);
+
         BUILDER.pop();
         BUILDER.pop();
 
@@ -184,6 +282,43 @@ public class Config {
                 .collect(Collectors.toCollection(LinkedHashSet::new));
 
         serverInstaBuildAuditLog = SERVER_INSTA_BUILD_AUDIT_LOG.get();
+
+        serverJobsMaxConcurrent = SERVER_JOBS_MAX_CONCURRENT.get();
+        serverJobsTickBudgetMs = SERVER_JOBS_TICK_BUDGET_MS.get();
+        serverJobsSchedulingPolicy = SERVER_JOBS_SCHEDULING_POLICY.get();
+        serverJobsPreloadChunks = SERVER_JOBS_PRELOAD_CHUNKS.get();
+        serverJobsAdaptiveThroughput = SERVER_JOBS_ADAPTIVE_THROUGHPUT.get();
+        serverJobsTargetMspt = SERVER_JOBS_TARGET_MSPT.get();
+        serverJobsPauseMspt = SERVER_JOBS_PAUSE_MSPT.get();
+        serverJobsRollbackOnFailure = SERVER_JOBS_ROLLBACK_ON_FAILURE.get();
+        serverJobsRollbackOnCancel = SERVER_JOBS_ROLLBACK_ON_CANCEL.get();
+        serverJobsCheckpointIntervalTicks = SERVER_JOBS_CHECKPOINT_INTERVAL_TICKS.get();
+        serverJobsPlanCacheMb = SERVER_JOBS_PLAN_CACHE_MB.get();
+        serverJobsProgressIntervalTicks = SERVER_JOBS_PROGRESS_INTERVAL_TICKS.get();
+        serverJobsProgressPercentStep = SERVER_JOBS_PROGRESS_PERCENT_STEP.get();
+        serverJobsQueueAgingSeconds = SERVER_JOBS_QUEUE_AGING_SECONDS.get();
+
+        Map<UUID, Double> weightsByUuid = new HashMap<>();
+        Map<String, Double> weightsByName = new HashMap<>();
+        for (String entry : SERVER_JOBS_PLAYER_WEIGHTS.get()) {
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String player = entry.substring(0, separator).trim();
+            double weight = parseWeight(entry.substring(separator + 1));
+            if (Double.isNaN(weight)) {
+                continue;
+            }
+            UUID uuid = parseUuidOrNull(player);
+            if (uuid != null) {
+                weightsByUuid.put(uuid, weight);
+            } else {
+                weightsByName.put(player.toLowerCase(Locale.ROOT), weight);
+            }
+        }
+        serverJobsPlayerWeightsByUuid = Map.copyOf(weightsByUuid);
+        serverJobsPlayerWeightsByName = Map.copyOf(weightsByName);
     }
 
     private static boolean validatePlayerIdentifier(final Object obj) {
@@ -200,6 +335,25 @@ public class Config {
         return trimmed.matches("^[A-Za-z0-9_.-]{3,16}$");
     }
 
+    private static boolean validatePlayerWeight(final Object obj) {
+        if (!(obj instanceof String entry)) {
+            return false;
+        }
+        int separator = entry.lastIndexOf('=');
+        return separator > 0
+                && validatePlayerIdentifier(entry.substring(0, separator))
+                && !Double.isNaN(parseWeight(entry.substring(separator + 1)));
+    }
+
+    private static double parseWeight(String value) {
+        try {
+            double weight = Double.parseDouble(value.trim());
+            return weight >= 0.01 && weight <= 100.0 ? weight : Double.NaN;
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
     private static boolean validateRoleIdentifier(final Object obj) {
         if (!(obj instanceof String entry)) {
             return false;
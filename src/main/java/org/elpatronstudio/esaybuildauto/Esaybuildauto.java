@@ -15,6 +15,7 @@ import net.neoforged.neoforge.event.server.ServerStartingEvent;
 import org.elpatronstudio.easybuild.client.EasyBuildClient;
 import org.elpatronstudio.easybuild.core.network.EasyBuildNetwork;
 import org.elpatronstudio.easybuild.server.ServerLifecycleEvents;
+import org.elpatronstudio.easybuild.server.job.ChunkPreloader;
 import org.slf4j.Logger;
 
 // The value here should match an entry in the META-INF/neoforge.mods.toml file
@@ -31,6 +32,7 @@ public class Esaybuildauto {
         modEventBus.addListener(this::commonSetup);
         modEventBus.addListener(EasyBuildNetwork::onRegisterPayloadHandlers);
         modEventBus.addListener(Config::onLoad);
+        modEventBus.addListener(ChunkPreloader::onRegisterTicketControllers);
 
         if (FMLEnvironment.getDist().isClient()) {
             modEventBus.addListener(this::onClientSetup);
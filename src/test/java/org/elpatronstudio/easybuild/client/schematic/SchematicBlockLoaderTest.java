@@ -0,0 +1,97 @@
+package org.elpatronstudio.easybuild.client.schematic;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import org.elpatronstudio.easybuild.client.model.SchematicFileEntry;
+import org.elpatronstudio.easybuild.core.model.AnchorPos;
+import org.elpatronstudio.easybuild.core.model.SchematicRef;
+import org.elpatronstudio.easybuild.server.job.BlockPlacementException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchematicBlockLoaderTest {
+
+    private static final int SIZE = 3;
+
+    @TempDir
+    static Path directory;
+
+    private static SchematicFileEntry paddedSchematic;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        paddedSchematic = writePaddedSponge(directory.resolve("padded.schem"));
+    }
+
+    @Test
+    void airPaddingKeepsPositionsUnrotated() throws BlockPlacementException {
+        assertPositions(Direction.NORTH, List.of(new BlockPos(2, 65, 1)));
+    }
+
+    @Test
+    void airPaddingKeepsPositionsRotated() throws BlockPlacementException {
+        assertPositions(Direction.EAST, List.of(new BlockPos(1, 65, 2)));
+    }
+
+    /**
+     * Loads the padded schematic with and without air and checks that the stone block lands on {@code expected} both
+     * times.
+     */
+    private static void assertPositions(Direction facing, List<BlockPos> expected) throws BlockPlacementException {
+        AnchorPos anchor = new AnchorPos(ResourceLocation.withDefaultNamespace("overworld"), 0, 64, 0, facing);
+
+        SchematicBlockLoader.Result withoutAir = SchematicBlockLoader.load(BuiltInRegistries.BLOCK, paddedSchematic, anchor, false);
+        assertEquals(expected, positions(withoutAir));
+
+        SchematicBlockLoader.Result withAir = SchematicBlockLoader.load(BuiltInRegistries.BLOCK, paddedSchematic, anchor, true);
+        assertEquals(SIZE * SIZE * SIZE, withAir.blocks().size());
+        assertEquals(expected, positions(withAir));
+    }
+
+    private static List<BlockPos> positions(SchematicBlockLoader.Result result) {
+        return result.blocks().stream()
+                .filter(block -> !block.state().isAir())
+                .map(SchematicBlockLoader.BlockInstance::position)
+                .toList();
+    }
+
+    /**
+     * Writes a {@code SIZE}³ Sponge schematic that is air except for one stone block at (2, 1, 1), so the low x, y and
+     * z layers are all air.
+     */
+    private static SchematicFileEntry writePaddedSponge(Path path) throws IOException {
+        CompoundTag palette = new CompoundTag();
+        palette.putInt("minecraft:air", 0);
+        palette.putInt("minecraft:stone", 1);
+
+        // Sponge order is x fastest, then z, then y; every index fits in a single varint byte
+        byte[] blockData = new byte[SIZE * SIZE * SIZE];
+        blockData[2 + SIZE + SIZE * SIZE] = 1;
+
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("Version", 2);
+        tag.putShort("Width", (short) SIZE);
+        tag.putShort("Height", (short) SIZE);
+        tag.putShort("Length", (short) SIZE);
+        tag.put("Palette", palette);
+        tag.putByteArray("BlockData", blockData);
+        NbtIo.writeCompressed(tag, path);
+
+        return new SchematicFileEntry("padded", "padded", path, new SchematicRef("padded", 1, 0L), 0L, blockData.length);
+    }
+}